@@ -0,0 +1,84 @@
+#!/usr/bin/env bash
+# /memberDtos, /members/stream, /members/{id} 로컬 부하 테스트 (curl + xargs, 추가 설치 없음)
+# 처리량(req/s)과 지연 시간 p50/p95/p99 를 출력하고 build/load-test/<이름>.txt 에 남긴다
+#
+# 사용법: scripts/load-test.sh [요청 수] [동시성]
+#   BASE_URL      대상 서버 (기본 http://localhost:8080)
+#   SEED          페이지 번호, 회원 id 를 고르는 난수 seed (같으면 같은 요청 순서)
+#   BASELINE_DIR  이전 결과 디렉터리, 지정하면 p95 가 TOLERANCE(%) 넘게 느려진 엔드포인트가 있을 때 실패
+# 200 이 아닌 응답(연결 실패 포함)이 하나라도 있으면 실패
+#
+# 대량 데이터는 서버를 --datajpa.generator.enabled=true 로 한 번 띄워서 만든다 (DataGenerator)
+# /memberDtos 는 응답 캐시가 있으니 DB 경로를 재려면 --datajpa.response-cache.max-entries=0
+# /members 는 엔티티(Page<Member>)를 그대로 돌려주는 예제라 빠져 있다 (open-in-view 가 꺼져 있어서 팀 프록시를 직렬화하지 못함)
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+REQUESTS=${1:-1000}
+CONCURRENCY=${2:-20}
+SEED=${SEED:-42}
+PAGE_SIZE=${PAGE_SIZE:-20}
+TOLERANCE=${TOLERANCE:-20}
+OUT_DIR=${OUT_DIR:-build/load-test}
+mkdir -p "$OUT_DIR"
+
+# 전체 회원 수와 id 후보 (정렬된 첫 페이지 1000 건)
+total=$(curl -sf "$BASE_URL/members/stream?page=0&size=1" | grep -o '"totalElements":[0-9]*' | cut -d: -f2)
+pages=$(( (total + PAGE_SIZE - 1) / PAGE_SIZE ))
+curl -sf "$BASE_URL/members/stream?page=0&size=1000&sort=id" | grep -o '"id":"[0-9]*"' | tr -dc '0-9\n' > "$OUT_DIR/ids"
+echo "members: $total, pages: $pages, requests: $REQUESTS, concurrency: $CONCURRENCY"
+
+# 같은 seed 면 같은 URL 목록
+urls() {
+  local kind=$1
+  awk -v n="$REQUESTS" -v seed="$SEED" -v pages="$pages" -v size="$PAGE_SIZE" -v base="$BASE_URL" -v kind="$kind" '
+    NR == FNR { ids[NR] = $1; count = NR; next }
+    END {
+      srand(seed)
+      for (i = 0; i < n; i++) {
+        if (kind == "id") print base "/members/" ids[int(rand() * count) + 1]
+        else print base "/" kind "?page=" int(rand() * pages) "&size=" size "&sort=username"
+      }
+    }' "$OUT_DIR/ids" /dev/null
+}
+
+run() {
+  local name=$1 kind=$2
+  local start end
+  start=$(date +%s.%N)
+  # 연결 실패는 curl 이 000 을 찍고 실패하지만 errors 로 세고 끝까지 돈다
+  urls "$kind" | xargs -P "$CONCURRENCY" -n 1 curl -s -o /dev/null -w '%{http_code} %{time_total}\n' > "$OUT_DIR/$name.raw" || true
+  end=$(date +%s.%N)
+
+  sort -k2 -n "$OUT_DIR/$name.raw" | awk -v name="$name" -v elapsed="$(awk -v s="$start" -v e="$end" 'BEGIN { print e - s }')" '
+    { code[NR] = $1; t[NR] = $2 * 1000; if ($1 != 200) errors++ }
+    END {
+      printf "%-12s rps=%.1f p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms errors=%d\n",
+        name, NR / elapsed, t[int(NR * 0.50) + 1], t[int(NR * 0.95) + 1], t[int(NR * 0.99) + 1], t[NR], errors
+    }' | tee "$OUT_DIR/$name.txt"
+}
+
+run memberDtos memberDtos
+run stream members/stream
+run member id
+
+failed=0
+for name in memberDtos stream member; do
+  errors=$(grep -o 'errors=[0-9]*' "$OUT_DIR/$name.txt" | cut -d= -f2)
+  if [ "$errors" -gt 0 ]; then
+    echo "ERRORS $name: $errors non-200 responses"
+    failed=1
+  fi
+done
+
+if [ -n "${BASELINE_DIR:-}" ]; then
+  for name in memberDtos stream member; do
+    before=$(grep -o 'p95=[0-9.]*' "$BASELINE_DIR/$name.txt" | cut -d= -f2)
+    after=$(grep -o 'p95=[0-9.]*' "$OUT_DIR/$name.txt" | cut -d= -f2)
+    if awk -v a="$after" -v b="$before" -v tol="$TOLERANCE" 'BEGIN { exit !(a > b * (100 + tol) / 100) }'; then
+      echo "REGRESSION $name: p95 ${before}ms -> ${after}ms"
+      failed=1
+    fi
+  done
+fi
+exit $failed
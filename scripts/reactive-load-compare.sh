@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# 블로킹 /memberDtos 와 논블로킹 /reactive/memberDtos 부하 비교 (ApacheBench 필요)
+# 사용법: scripts/reactive-load-compare.sh [요청 수] [동시성] [페이지 크기]
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+REQUESTS=${1:-2000}
+CONCURRENCY=${2:-200}
+SIZE=${3:-100}
+
+run() {
+  local name=$1 path=$2 accept=$3
+  echo "== $name ($path)"
+  ab -q -n "$REQUESTS" -c "$CONCURRENCY" -H "Accept: $accept" "$BASE_URL$path?page=0&size=$SIZE&sort=username" \
+    | grep -E "Requests per second|Time per request|Failed requests|50%|95%|99%"
+}
+
+# /memberDtos 는 MemberConditionalGetFilter 가 응답을 캐시하니까 DB 경로끼리 비교하려면
+# 서버를 --datajpa.response-cache.max-entries=0 으로 띄운다
+run "blocking" /memberDtos application/json
+run "reactive" /reactive/memberDtos application/stream+json
@@ -0,0 +1,125 @@
+package study.datajpa.entity;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 관리 중인 엔티티 수에 따른 flush 시간
+// - cleanFlush: 바뀐 게 없는 flush = 순수 더티 체크 비용 (향상 전에는 엔티티 수에 비례해서 스냅샷 비교)
+// - dirtyFlush: 회원 한 명만 바꾸고 flush
+// - changeTeamFlush: 회원을 다른 팀으로 옮기고 flush, 팀은 로딩돼 있지만 members 는 아직 지연 로딩 상태
+//   연관관계 관리를 켜면 5.4.8 은 옛 팀/새 팀의 members 에 remove/contains 를 불러서 컬렉션 전체를 읽는다
+//   반복(iteration)마다 members 가 초기화된 팀 수를 로그로 남긴다 (향상 설정과 관계없이 0 이어야 한다)
+// ./gradlew jmh 와 ./gradlew clean jmh -PnoEnhance 결과를 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlushBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(FlushBenchmark.class);
+    private static final int TEAMS = 10;
+
+    @Param({"100", "1000", "10000"})
+    private int managed;
+
+    private SessionFactory sessionFactory;
+    private Session session;
+    private Transaction transaction;
+    private List<Member> members;
+    private List<Team> teams;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, "jdbc:h2:mem:flush" + managed + ";DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.USER, "sa")
+                .applySetting(AvailableSettings.PASS, "")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 100)
+                // 애플리케이션과 같은 컬럼 이름 (deleted_date 등, @SQLDelete/@Where 가 그대로 쓴다)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName())
+                .applySetting(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName())
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addPackage(Member.class.getPackage().getName()) // package-info 의 snowflake 생성기
+                .addAnnotatedClass(Member.class)
+                .addAnnotatedClass(Team.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        try (Session seed = sessionFactory.openSession()) {
+            Transaction tx = seed.beginTransaction();
+            List<Team> teams = new ArrayList<>();
+            for (int i = 0; i < TEAMS; i++) {
+                Team team = new Team("team" + i);
+                seed.persist(team);
+                teams.add(team);
+            }
+            for (int i = 0; i < managed; i++) {
+                seed.persist(new Member("member" + i, i % 100, teams.get(i % TEAMS)));
+            }
+            tx.commit();
+        }
+
+        // -PnoEnhance 비교 실행도 있어서 실패시키지 않고, 향상이 적용됐는지 결과와 같이 남겨둔다
+        log.info("enhanced: {}", ManagedEntity.class.isAssignableFrom(Member.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        session = sessionFactory.openSession();
+        transaction = session.beginTransaction();
+        members = session.createQuery("select m from Member m join fetch m.team", Member.class).list();
+        teams = session.createQuery("select t from Team t", Team.class).list(); // 위에서 로딩된 인스턴스, members 는 지연
+    }
+
+    @TearDown(Level.Iteration)
+    public void rollback() {
+        log.info("initialized team.members: {}/{}", teams.stream().filter(team -> Hibernate.isInitialized(team.getMembers())).count(), teams.size());
+        transaction.rollback();
+        session.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void cleanFlush() {
+        session.flush();
+    }
+
+    @Benchmark
+    public void dirtyFlush() {
+        Member member = members.get(cursor++ % members.size());
+        member.setAge(member.getAge() + 1);
+        session.flush();
+    }
+
+    @Benchmark
+    public void changeTeamFlush() {
+        Member member = members.get(cursor++ % members.size());
+        member.changeTeam(teams.get(cursor % teams.size()));
+        session.flush();
+    }
+}
@@ -0,0 +1,95 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// findByNativeProjection (스프링 데이터 프록시 매핑) vs MemberProjectionRow / MemberColumns 행당 할당량 비교
+// ./gradlew jmh  -> gc 프로파일러의 gc.alloc.rate.norm 을 ROWS 로 나누면 행당 바이트
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeProjectionBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final String SQL = "SELECT m.member_id as id, m.username, t.name as teamName " +
+            "FROM member m left join team t ON m.team_id = t.team_id";
+    private static final String COLUMNS_SQL = "select member_id, age, team_id, username from member";
+
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("create table team (team_id bigint primary key, name varchar(255))");
+            st.execute("create table member (member_id bigint primary key, username varchar(255), age int, team_id bigint)");
+            st.execute("insert into team values (1, 'teamA'), (2, 'teamB')");
+        }
+        try (PreparedStatement ps = connection.prepareStatement("insert into member values (?, ?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, "member" + i);
+                ps.setInt(3, i % 100);
+                ps.setLong(4, i % 2 + 1);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // 스프링 데이터가 하는 일: 행마다 Tuple -> Map -> 프로젝션 프록시
+    @Benchmark
+    public void proxyMapping(Blackhole bh) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(SQL); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Map<String, Object> tuple = new LinkedHashMap<>();
+                tuple.put("id", rs.getLong(1));
+                tuple.put("username", rs.getString(2));
+                tuple.put("teamName", rs.getString(3));
+                MemberProjection projection = projectionFactory.createProjection(MemberProjection.class, tuple);
+                bh.consume(projection.getId());
+                bh.consume(projection.getUsername());
+                bh.consume(projection.getTeamName());
+            }
+        }
+    }
+
+    @Benchmark
+    public void compactMapping(Blackhole bh) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(SQL); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                MemberProjection projection = MemberProjectionRow.read(rs);
+                bh.consume(projection.getId());
+                bh.consume(projection.getUsername());
+                bh.consume(projection.getTeamName());
+            }
+        }
+    }
+
+    @Benchmark
+    public void columnarMapping(Blackhole bh) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(COLUMNS_SQL); ResultSet rs = ps.executeQuery()) {
+            MemberColumns columns = new MemberColumns(ROWS);
+            while (rs.next()) {
+                columns.read(rs);
+            }
+            bh.consume(columns);
+        }
+    }
+}
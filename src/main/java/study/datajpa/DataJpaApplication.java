@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing // auditing 기능 사용하려면 무조건 넣어줘야 해!
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider") // auditing 기능 사용하려면 무조건 넣어줘야 해! (시간은 AuditClockConfig)
+@EnableScheduling // TeamMemberCountReconciler 등 주기 작업
 @SpringBootApplication
 public class DataJpaApplication {
 
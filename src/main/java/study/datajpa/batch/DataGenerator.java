@@ -0,0 +1,163 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.support.AuditClock;
+import study.datajpa.support.MemberWriteVersion;
+import study.datajpa.support.SnowflakeIdGenerator;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// 부하 테스트용 대량 데이터 생성기 (datajpa.generator.enabled=true 로 기동하면 한 번 실행)
+// - 같은 seed 면 같은 분포(팀 크기, 이름, 나이)가 나온다. id 는 snowflake 라 실행마다 다르다
+// - 팀 크기는 지프 분포: k 번째 팀이 1/k^skew 비율로 회원을 가져가서 몇몇 팀에 몰린다
+// - JPA 를 거치지 않고 JDBC 배치 INSERT 를 batch-size 건씩 커밋한다 (리스너, outbox 없음, 응답 캐시 버전만 올린다)
+//   그래서 member_count 는 마지막에 직접 맞추고, created_date 는 컬럼 기본값(current_timestamp)에 맡긴다
+// - 샤딩이 켜져 있어도 기본 샤드(0)에만 넣는다 (id 의 샤드 비트도 0)
+@Slf4j
+@Component
+public class DataGenerator {
+
+    private static final String TEAM_SQL = "insert into team (team_id, name, updated_date) values (?, ?, ?)";
+    private static final String MEMBER_SQL =
+            "insert into member (member_id, username, age, team_id, last_modified_date) values (?, ?, ?, ?, ?)";
+    private static final String MEMBER_COUNT_SQL = "update team set member_count = ? where team_id = ?";
+    private static final String ITEM_SQL = "insert into item (id, created_date) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberWriteVersion writeVersion;
+    private final int nodeId;
+    private final int batchSize;
+    private final double skew;
+
+    @Value("${datajpa.generator.enabled:false}")
+    private boolean enabled;
+    @Value("${datajpa.generator.seed:42}")
+    private long seed;
+    @Value("${datajpa.generator.members:1000000}")
+    private int members;
+    @Value("${datajpa.generator.teams:2000}")
+    private int teams;
+    @Value("${datajpa.generator.items:100000}")
+    private int items;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MemberWriteVersion writeVersion,
+                         @Value("${spring.jpa.properties.datajpa.snowflake.node-id:0}") int nodeId,
+                         @Value("${datajpa.generator.batch-size:5000}") int batchSize,
+                         @Value("${datajpa.generator.skew:1.1}") double skew) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.writeVersion = writeVersion;
+        this.nodeId = nodeId;
+        this.batchSize = batchSize;
+        this.skew = skew;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void generateOnStartup(){
+        if(enabled){
+            generate(seed, members, teams, items);
+        }
+    }
+
+    // 이름은 모두 gen{seed}- 로 시작한다 (지울 때 like 'gen42-%'). 팀별 회원 수를 반환
+    public int[] generate(long seed, int memberCount, int teamCount, int itemCount){
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+        String prefix = prefix(seed);
+        LocalDateTime now = AuditClock.now();
+        List<Object[]> rows = new ArrayList<>(batchSize);
+
+        long[] teamIds = new long[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            teamIds[i] = SnowflakeIdGenerator.nextId(nodeId, 0);
+            rows.add(new Object[]{teamIds[i], prefix + "team" + i, now});
+            insertIfFull(TEAM_SQL, rows);
+        }
+        insert(TEAM_SQL, rows);
+
+        double[] cumulative = zipf(teamCount);
+        int[] teamSizes = new int[teamCount];
+        for (int i = 0; i < memberCount; i++) {
+            Long teamId = null;
+            if(teamCount > 0){
+                int team = pick(cumulative, random.nextDouble());
+                teamSizes[team]++;
+                teamId = teamIds[team];
+            }
+            rows.add(new Object[]{SnowflakeIdGenerator.nextId(nodeId, 0), prefix + "member" + i, random.nextInt(100), teamId, now});
+            insertIfFull(MEMBER_SQL, rows);
+        }
+        insert(MEMBER_SQL, rows);
+
+        for (int i = 0; i < teamCount; i++) {
+            rows.add(new Object[]{teamSizes[i], teamIds[i]});
+            insertIfFull(MEMBER_COUNT_SQL, rows);
+        }
+        insert(MEMBER_COUNT_SQL, rows);
+
+        // Item 은 id 를 직접 정하니까 같은 seed 로 다시 돌리면 건너뛴다
+        Long existing = jdbcTemplate.queryForObject("select count(*) from item where id = ?", Long.class, prefix + "item0");
+        if(existing == 0){
+            for (int i = 0; i < itemCount; i++) {
+                rows.add(new Object[]{prefix + "item" + i, now});
+                insertIfFull(ITEM_SQL, rows);
+            }
+            insert(ITEM_SQL, rows);
+        }
+
+        log.info("generated {} members / {} teams / {} items (seed {}, largest team {}) in {} ms",
+                memberCount, teamCount, itemCount, seed, Arrays.stream(teamSizes).max().orElse(0),
+                System.currentTimeMillis() - start);
+        return teamSizes;
+    }
+
+    public static String prefix(long seed){
+        return "gen" + seed + "-";
+    }
+
+    // k 번째 팀까지의 누적 비율 (마지막 값 1.0)
+    private double[] zipf(int teamCount){
+        double[] cumulative = new double[teamCount];
+        double sum = 0;
+        for (int k = 0; k < teamCount; k++) {
+            sum += 1.0 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < teamCount; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+
+    private int pick(double[] cumulative, double r){
+        int index = Arrays.binarySearch(cumulative, r);
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cumulative.length - 1);
+    }
+
+    private void insertIfFull(String sql, List<Object[]> rows){
+        if(rows.size() >= batchSize){
+            insert(sql, rows);
+        }
+    }
+
+    private void insert(String sql, List<Object[]> rows){
+        if(rows.isEmpty()){
+            return;
+        }
+        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(sql, rows));
+        writeVersion.changed();
+        rows.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 삭제된 지 retention-days 가 지난 회원을 member_archive 로 옮긴다
+// batch-size 건씩 복사 + 삭제를 한 트랜잭션으로 처리해서 락과 undo 를 작게 유지한다
+// 이미 소프트 삭제 때 팀 회원 수, 요약, outbox 가 반영됐으므로 여기서는 행만 옮긴다
+// 소프트 삭제가 team_id 를 deleted_team_id 로 옮기니까 아카이브에는 그 값을 남긴다 (이전에 삭제된 행은 team_id 그대로)
+@Slf4j
+@Component
+public class MemberArchiveJob {
+
+    private static final String SELECT_SQL =
+            "select member_id from member where deleted_date < ? order by deleted_date, member_id limit ?";
+    private static final String COPY_SQL =
+            "insert into member_archive (member_id, username, age, team_id, created_date, last_modified_date," +
+            " created_by, last_modified_by, deleted_date, archived_date)" +
+            " select member_id, username, age, coalesce(team_id, deleted_team_id), created_date, last_modified_date," +
+            " created_by, last_modified_by, deleted_date, ? from member where member_id in (%s)";
+    private static final String DELETE_SQL = "delete from member where member_id in (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int batchSize;
+
+    private final AtomicLong archived = new AtomicLong();
+
+    public MemberArchiveJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            @Value("${datajpa.archive.retention-days:30}") int retentionDays,
+                            @Value("${datajpa.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${datajpa.archive.interval:3600000}",
+            fixedDelayString = "${datajpa.archive.interval:3600000}")
+    public void archivePeriodically(){
+        try {
+            long count = archive(LocalDateTime.now().minusDays(retentionDays));
+            if(count > 0){
+                log.info("archived {} deleted members", count);
+            }
+        } catch (RuntimeException e) {
+            log.warn("member archive failed, will retry next run", e);
+        }
+    }
+
+    // deletedBefore 이전에 삭제된 회원을 모두 옮기고 옮긴 수를 반환
+    public long archive(LocalDateTime deletedBefore){
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(deletedBefore));
+            total += moved;
+        } while (moved == batchSize);
+        archived.addAndGet(total);
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime deletedBefore){
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_SQL, Long.class, deletedBefore, batchSize);
+        if(ids.isEmpty()){
+            return 0;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] copyArgs = new Object[ids.size() + 1];
+        copyArgs[0] = LocalDateTime.now();
+        for (int i = 0; i < ids.size(); i++) {
+            copyArgs[i + 1] = ids.get(i);
+        }
+        jdbcTemplate.update(String.format(COPY_SQL, placeholders), copyArgs);
+        jdbcTemplate.update(String.format(DELETE_SQL, placeholders), ids.toArray());
+        return ids.size();
+    }
+
+    public long getArchived(){
+        return archived.get();
+    }
+}
@@ -0,0 +1,154 @@
+package study.datajpa.batch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.ScanCheckpoint;
+import study.datajpa.repository.MemberIdPartitions;
+import study.datajpa.repository.ScanCheckpointRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// 전체 회원을 훑어야 하는 배치용 (재계산, 재색인 등)
+// member_id 순서로 회원 수가 같게 N개로 나누고 파티션마다 스레드 하나가 키셋(id > lastId) 방식으로 청크씩 읽는다
+// - findAll 처럼 전부 메모리에 올리지 않고, offset 페이징처럼 뒤로 갈수록 느려지지 않는다
+// - 파티션마다 자기 EntityManager + 읽기 전용 트랜잭션, 청크마다 clear 해서 영속성 컨텍스트 크기가 청크 하나로 제한된다
+// - 청크를 처리할 때마다 체크포인트를 남기므로 같은 jobName 으로 다시 실행하면 멈춘 곳부터 이어서 한다
+//   (체크포인트 직전 청크는 다시 처리될 수 있다 -> work 는 같은 청크를 두 번 받아도 괜찮아야 한다)
+// 파티션마다 읽기 커넥션 + 체크포인트 커넥션을 쓰므로 partitions 는 커넥션 풀 크기의 절반 이하로
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberParallelScanner {
+
+    private final EntityManagerFactory emf;
+    private final ScanCheckpointRepository checkpointRepository;
+
+    // work 에 넘어가는 회원은 읽기 전용이라 값을 바꿔도 반영되지 않는다, 쓰기는 별도 트랜잭션에서
+    public long scan(String jobName, int partitions, int chunkSize, Consumer<List<Member>> work){
+        List<ScanCheckpoint> checkpoints = checkpointRepository.findByJobNameOrderByPartitionNo(jobName);
+        if(checkpoints.isEmpty()){
+            checkpoints = createCheckpoints(jobName, partitions);
+        } else {
+            log.info("resume scan {} from {} checkpoints", jobName, checkpoints.size());
+        }
+        if(checkpoints.isEmpty()){
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(checkpoints.size());
+        AtomicBoolean stopped = new AtomicBoolean();
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (ScanCheckpoint checkpoint : checkpoints) {
+                if(!checkpoint.isDone()){
+                    futures.add(executor.submit(() -> scanPartition(checkpoint, chunkSize, work, stopped)));
+                }
+            }
+            long processed = 0;
+            for (Future<Long> future : futures) {
+                processed += future.get();
+            }
+            checkpointRepository.deleteByJobName(jobName);
+            return processed;
+        } catch (InterruptedException e) {
+            stopped.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("scan interrupted: " + jobName, e);
+        } catch (ExecutionException e) {
+            // 다른 파티션이 체크포인트를 남기고 멈출 때까지 기다린다 (바로 다시 실행해도 같은 구간을 동시에 읽지 않게)
+            stop(executor, stopped);
+            throw new IllegalStateException("scan failed, rerun to resume: " + jobName, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void stop(ExecutorService executor, AtomicBoolean stopped){
+        stopped.set(true);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<ScanCheckpoint> createCheckpoints(String jobName, int partitions){
+        List<Long> startIds;
+        EntityManager em = emf.createEntityManager();
+        try {
+            // 파티션마다 회원 수가 같도록 행 위치로 나눈다
+            startIds = MemberIdPartitions.startIds(em, partitions);
+        } finally {
+            em.close();
+        }
+
+        List<ScanCheckpoint> checkpoints = new ArrayList<>();
+        for (int i = 0; i < startIds.size(); i++) {
+            // 스캔 중에 추가된 회원은 마지막 파티션이 읽는다
+            long end = i + 1 < startIds.size() ? startIds.get(i + 1) - 1 : Long.MAX_VALUE;
+            checkpoints.add(new ScanCheckpoint(jobName, i, startIds.get(i), end));
+        }
+        return checkpointRepository.saveAll(checkpoints);
+    }
+
+    private long scanPartition(ScanCheckpoint checkpoint, int chunkSize, Consumer<List<Member>> work, AtomicBoolean stopped){
+        long lastId = checkpoint.getLastId();
+        long processed = 0;
+        boolean done = false;
+
+        EntityManager em = emf.createEntityManager();
+        em.unwrap(Session.class).setDefaultReadOnly(true); // 스냅샷을 만들지 않으니 더티 체킹 비용도 없다
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            // 다른 파티션이 실패하면 마지막 체크포인트까지만 남기고 멈춘다 (done 으로 표시하지 않음)
+            while (!stopped.get()) {
+                List<Member> chunk = em.createQuery(
+                        "select m from Member m where m.id > :lastId and m.id <= :rangeEnd order by m.id", Member.class)
+                        .setParameter("lastId", lastId)
+                        .setParameter("rangeEnd", checkpoint.getRangeEnd())
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                if(chunk.isEmpty()){
+                    done = true;
+                    break;
+                }
+
+                work.accept(chunk);
+                lastId = chunk.get(chunk.size() - 1).getId();
+                processed += chunk.size();
+                em.clear();
+                checkpointRepository.updateLastId(checkpoint.getId(), lastId);
+            }
+            tx.commit();
+        } finally {
+            if(tx.isActive()){
+                tx.rollback();
+            }
+            em.close();
+        }
+
+        if(!done){
+            log.info("scan {} partition {} stopped at {}", checkpoint.getJobName(), checkpoint.getPartitionNo(), lastId);
+            return processed;
+        }
+        checkpointRepository.markDone(checkpoint.getId());
+        log.info("scan {} partition {} done: {} rows", checkpoint.getJobName(), checkpoint.getPartitionNo(), processed);
+        return processed;
+    }
+}
@@ -4,12 +4,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import reactor.core.publisher.Flux;
+import study.datajpa.repository.MemberReactiveRepository;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.web.EntityLookup;
+import study.datajpa.web.MemberJsonStreamer;
 
 import javax.annotation.PostConstruct;
 
@@ -18,6 +24,8 @@ import javax.annotation.PostConstruct;
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final MemberJsonStreamer memberJsonStreamer;
+    private final MemberReactiveRepository memberReactiveRepository;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id){
@@ -26,8 +34,9 @@ public class MemberController {
     }
 
     // 도메인 클래스 컨버터 - 권장하지는 않음
+    // @EntityLookup 을 붙이면 컨버터 대신 캐시된 읽기 전용 스냅샷을 받는다 (username 만 필요)
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member){
+    public String findMember2(@PathVariable("id") @EntityLookup(EntityLookup.Mode.SNAPSHOT) Member member){
         return member.getUsername();
     }
 
@@ -43,6 +52,19 @@ public class MemberController {
         return map;
     }
 
+    // 엔티티를 거치지 않고 쿼리 결과를 바로 JSON 으로 스트리밍
+    @GetMapping(value = "/members/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamList(@PageableDefault(page = 5, sort = "username") Pageable pageable){
+        return out -> memberJsonStreamer.writePage(pageable, out);
+    }
+
+    // /memberDtos 의 논블로킹 버전: 한 줄에 회원 하나씩 (application/stream+json)
+    // 스프링 MVC 는 하나를 다 쓴 뒤에 다음 하나를 요청하므로 클라이언트가 읽는 속도에 맞춰 DB 에서 꺼낸다
+    @GetMapping(value = "/reactive/memberDtos", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<MemberDto> reactiveDtoList(@PageableDefault(page = 5, sort = "username") Pageable pageable){
+        return memberReactiveRepository.findMemberDto(pageable);
+    }
+
     @PostConstruct
     public void init(){
         for(int i = 0 ; i < 100 ; i++){
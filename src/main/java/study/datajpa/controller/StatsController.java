@@ -0,0 +1,67 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.outbox.OutboxRelay;
+import study.datajpa.repository.QueryMemo;
+import study.datajpa.support.FetchProfiler;
+import study.datajpa.support.MemberWriteBehindBuffer;
+import study.datajpa.support.QueryPlanStats;
+import study.datajpa.support.SessionStatsCollector;
+import study.datajpa.web.EntityLookupArgumentResolver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 성능 관련 지표를 확인하는 용도
+@RestController
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final QueryMemo queryMemo;
+    private final QueryPlanStats queryPlanStats;
+    private final OutboxRelay outboxRelay;
+    private final MemberWriteBehindBuffer memberWriteBehindBuffer;
+    private final EntityLookupArgumentResolver entityLookupArgumentResolver;
+    private final FetchProfiler fetchProfiler;
+    private final SessionStatsCollector sessionStatsCollector;
+
+    @GetMapping("/stats/query-memo")
+    public Map<String, Object> queryMemo(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("savedRoundTrips", queryMemo.getSavedRoundTrips());
+        result.put("executedQueries", queryMemo.getExecutedQueries());
+        return result;
+    }
+
+    @GetMapping("/stats/query-plan")
+    public Map<String, Object> queryPlan(){
+        return queryPlanStats.report();
+    }
+
+    @GetMapping("/stats/outbox")
+    public Map<String, Object> outbox(){
+        return outboxRelay.metrics();
+    }
+
+    @GetMapping("/stats/write-behind")
+    public Map<String, Object> writeBehind(){
+        return memberWriteBehindBuffer.metrics();
+    }
+
+    @GetMapping("/stats/entity-lookup")
+    public Map<String, Object> entityLookup(){
+        return entityLookupArgumentResolver.metrics();
+    }
+
+    @GetMapping("/stats/fetch-profile")
+    public Map<String, Object> fetchProfile(){
+        return fetchProfiler.report();
+    }
+
+    @GetMapping("/stats/session")
+    public Map<String, Object> session(){
+        return sessionStatsCollector.report();
+    }
+}
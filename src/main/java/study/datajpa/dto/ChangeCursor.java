@@ -0,0 +1,27 @@
+package study.datajpa.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// 변경 조회 키셋 위치 (수정 시각, id), 마지막으로 받은 행의 값을 넘기면 그 다음부터 읽는다
+@Getter
+@ToString
+@EqualsAndHashCode
+public class ChangeCursor {
+
+    private final LocalDateTime changedAt;
+    private final long id;
+
+    public ChangeCursor(LocalDateTime changedAt, long id) {
+        this.changedAt = changedAt;
+        this.id = id;
+    }
+
+    // 처음 동기화할 때, since 시각 이후 변경 전부
+    public static ChangeCursor since(LocalDateTime since){
+        return new ChangeCursor(since, 0);
+    }
+}
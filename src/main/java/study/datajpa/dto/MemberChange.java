@@ -0,0 +1,36 @@
+package study.datajpa.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// 변경된 회원 한 줄, deleted 면 톰스톤 (소프트 삭제된 행)
+@Getter
+@ToString
+public class MemberChange {
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long id;
+    private final String username;
+    private final int age;
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long teamId;
+    private final LocalDateTime changedAt;
+    private final boolean deleted;
+
+    public MemberChange(Long id, String username, int age, Long teamId, LocalDateTime changedAt, boolean deleted) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.changedAt = changedAt;
+        this.deleted = deleted;
+    }
+
+    public ChangeCursor cursor(){
+        return new ChangeCursor(changedAt, id);
+    }
+}
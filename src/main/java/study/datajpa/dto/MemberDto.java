@@ -1,11 +1,15 @@
 package study.datajpa.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 import study.datajpa.entity.Member;
 
 @Data
 public class MemberDto {
 
+    // 스노우플레이크 id 는 2^53 을 넘어서 JS 숫자로 받으면 끝자리가 틀어진다 -> JSON 에는 문자열로
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String username;
     private String teamName;
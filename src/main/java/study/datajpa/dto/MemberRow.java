@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 집계용으로 읽는 한 줄, 엔티티가 아니라서 영속성 컨텍스트에 쌓이지 않는다
+@Getter
+@ToString
+public class MemberRow {
+
+    private final Long id;
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    public MemberRow(Long id, String username, int age, Long teamId) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
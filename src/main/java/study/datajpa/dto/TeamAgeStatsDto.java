@@ -0,0 +1,26 @@
+package study.datajpa.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+
+@Data
+public class TeamAgeStatsDto {
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private Integer minAge;
+    private Integer maxAge;
+    private Double avgAge;
+
+    public TeamAgeStatsDto(Long teamId, String teamName, Long memberCount, Integer minAge, Integer maxAge, Double avgAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.avgAge = avgAge;
+    }
+}
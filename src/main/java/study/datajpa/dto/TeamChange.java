@@ -0,0 +1,33 @@
+package study.datajpa.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// 변경된 팀 한 줄, deleted 면 톰스톤 (팀은 실제로 지워지므로 tombstone 테이블에서 읽는다, name 없음)
+@Getter
+@ToString
+public class TeamChange {
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private final Long id;
+    private final String name;
+    private final int memberCount;
+    private final LocalDateTime changedAt;
+    private final boolean deleted;
+
+    public TeamChange(Long id, String name, int memberCount, LocalDateTime changedAt, boolean deleted) {
+        this.id = id;
+        this.name = name;
+        this.memberCount = memberCount;
+        this.changedAt = changedAt;
+        this.deleted = deleted;
+    }
+
+    public ChangeCursor cursor(){
+        return new ChangeCursor(changedAt, id);
+    }
+}
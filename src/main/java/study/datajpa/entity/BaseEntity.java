@@ -8,6 +8,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
+import java.time.LocalDateTime;
 
 @EntityListeners(AuditingEntityListener.class) // 스프링 데이터 JPA로 auditing 사용할 때 꼭 넣어줘야 해
 @MappedSuperclass
@@ -20,4 +21,13 @@ public class BaseEntity extends BaseTimeEntity{
 
     @LastModifiedBy
     private String lastModifiedBy;
+
+    // 삭제 시각, null 이면 살아 있는 행
+    // 하위 엔티티에 @SQLDelete, @Where 를 붙여서 remove 가 이 값을 채우고 조회에서 빠지게 한다
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime deletedDate;
+
+    public boolean isDeleted(){
+        return deletedDate != null;
+    }
 }
@@ -1,6 +1,8 @@
 package study.datajpa.entity;
 
 import lombok.Getter;
+import org.hibernate.annotations.ColumnDefault;
+import study.datajpa.support.AuditClock;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
@@ -13,19 +15,20 @@ import java.time.LocalDateTime;
 @MappedSuperclass // 진짜 상속관계는 아니고 속성만 내려줄 때
 public class JpaBaseEntity {
 
+    @ColumnDefault("current_timestamp") // datajpa.audit.db-created-date=true 면 DB 가 채운다
     @Column(updatable = false)
     private LocalDateTime createdDate;
     private LocalDateTime updatedDate;
 
     @PrePersist
     public void prePersist(){
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = AuditClock.now();
         createdDate = now;
         updatedDate = now;
     }
 
     @PreUpdate
     public void preUpdate(){
-        updatedDate = LocalDateTime.now();
+        updatedDate = AuditClock.now();
     }
 }
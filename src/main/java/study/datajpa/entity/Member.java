@@ -1,6 +1,13 @@
 package study.datajpa.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.*;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
+import study.datajpa.repository.QueryMemoInvalidator;
+import study.datajpa.support.SnowflakeIdGenerator;
 
 import javax.persistence.*;
 
@@ -16,11 +23,29 @@ import javax.persistence.*;
         query = "select m from Member m where m.username = :username"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode(("team"))) // JPA 표준 스펙
+@EntityListeners(QueryMemoInvalidator.class)
+// 소프트 삭제: remove 는 deleted_date 만 채우고, JPQL/find/연관관계 조회는 삭제된 회원을 보지 않는다
+// 네이티브 쿼리는 직접 deleted_date is null 을 붙여야 하고, deleteInBatch 같은 JPQL 벌크 삭제는 실제로 지운다
+// 오래된 삭제 행은 MemberArchiveJob 이 member_archive 로 옮긴다
+// 삭제된 행이 FK 로 팀을 붙잡으면 팀을 지울 수 없으니 team_id 는 deleted_team_id 로 옮겨 둔다 (아카이브, 변경 조회에서 사용)
+@SQLDelete(sql = "update member set deleted_date = current_timestamp, last_modified_date = current_timestamp," +
+        " deleted_team_id = team_id, team_id = null where member_id = ?")
+@Where(clause = "deleted_date is null")
+// H2 는 부분 인덱스(where deleted_date is null)가 없어서 deleted_date 를 앞에 둔 복합 인덱스로 살아 있는 행 구간만 탄다
+// last_modified_date, member_id 는 변경 조회 키셋 (findMembersChangedSince)
+@Table(indexes = {
+        @Index(name = "idx_member_live_username", columnList = "deletedDate, username"),
+        @Index(name = "idx_member_last_modified", columnList = "lastModifiedDate, member_id")
+})
 public class Member extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME) // 시퀀스 없이 시간 순 id
     @Column(name = "member_id")
+    // 2^53 을 넘는 id 는 JS 숫자로 받으면 끝자리가 틀어진다 -> JSON 에는 문자열로 (/members 는 엔티티를 그대로 반환한다)
+    // 필드 이름이 Id 라서 getId() 의 id 와 합쳐지도록 이름을 맞춘다 (안 그러면 Id, id 가 따로 나간다)
+    @JsonProperty("id")
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long Id;
     private String username;
     private int age;
@@ -29,6 +54,11 @@ public class Member extends BaseEntity {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    // 소프트 삭제 직전의 team_id, FK 없이 값만 (@SQLDelete 가 채운다)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "deleted_team_id", insertable = false, updatable = false)
+    private Long deletedTeamId;
+
     public Member(String username, int age, Team team) {
         this.username = username;
         this.age = age;
@@ -43,8 +73,13 @@ public class Member extends BaseEntity {
     }
 
     public void changeTeam(Team team){
-        this.team = team;
+        if(this.team != null){
+            this.team.decreaseMemberCount();
+        }
+        // 지연 로딩 상태의 members 에 add 만 하면 초기화하지 않고 flush 까지 미뤄둔다 (컬렉션을 읽지 않는다)
         team.getMembers().add(this);
+        this.team = team;
+        team.increaseMemberCount();
     }
 
     public Member(String username) {
@@ -0,0 +1,37 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 소프트 삭제 후 보존 기간이 지난 회원, MemberArchiveJob 이 member 에서 옮겨 온다
+// member 테이블은 살아 있는 회원 + 최근 삭제분만 남아서 크기가 일정하게 유지된다
+// 팀이 지워져도 이력은 남아야 하므로 team_id 는 FK 없이 값만
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(name = "member_archive", indexes = @Index(name = "idx_member_archive_deleted_date", columnList = "deleted_date"))
+public class MemberArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+    private String username;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    private LocalDateTime createdDate;
+    private LocalDateTime lastModifiedDate;
+    private String createdBy;
+    private String lastModifiedBy;
+    @Column(name = "deleted_date")
+    private LocalDateTime deletedDate;
+    private LocalDateTime archivedDate;
+}
@@ -0,0 +1,29 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 트랜잭셔널 아웃박스 테이블
+// Member/Team 변경과 같은 트랜잭션에서 OutboxEventListener 가 JDBC 배치로 넣고, OutboxRelay 가 꺼내서 발행한 뒤 지운다
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "outbox_event")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // 넣는 순서대로 꺼내기 위해
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+    @Lob
+    private String payload;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+// 병렬 스캔 배치의 파티션별 진행 상황, 중간에 죽어도 lastId 다음부터 다시 시작한다
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"job_name", "partition_no"}))
+public class ScanCheckpoint {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    @Column(name = "job_name")
+    private String jobName;
+    @Column(name = "partition_no")
+    private int partitionNo;
+    private long rangeEnd;
+    private long lastId; // 여기까지 처리 완료 (이 값은 제외하고 다음부터 읽는다)
+    private boolean done;
+
+    public ScanCheckpoint(String jobName, int partitionNo, long rangeStart, long rangeEnd) {
+        this.jobName = jobName;
+        this.partitionNo = partitionNo;
+        this.rangeEnd = rangeEnd;
+        this.lastId = rangeStart - 1;
+    }
+}
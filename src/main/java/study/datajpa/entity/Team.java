@@ -1,6 +1,10 @@
 package study.datajpa.entity;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import study.datajpa.support.SnowflakeIdGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,19 +14,41 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@ToString(of = {"id", "name"})
+@ToString(of = {"id", "name", "memberCount"})
+@Table(indexes = {
+        @Index(name = "idx_team_member_count", columnList = "member_count"),
+        @Index(name = "idx_team_updated", columnList = "updatedDate, team_id") // 변경 조회 키셋
+})
 public class Team extends JpaBaseEntity{
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME) // 시퀀스 없이 시간 순 id
     @Column(name = "team_id")
+    // 2^53 을 넘는 id 는 JS 숫자로 받으면 끝자리가 틀어진다 -> JSON 에는 문자열로
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String name;
 
+    // 팀별 회원 수를 셀 때 members 컬렉션을 초기화하거나 count 쿼리를 날리지 않도록 비정규화
+    // DB 값은 TeamMemberCountListener 가 원자적으로 증감시키고, 엔티티 값은 같은 영속성 컨텍스트 안에서 맞춰주기만 한다
+    @ColumnDefault("0")
+    @Column(name = "member_count", insertable = false, updatable = false)
+    private int memberCount;
+
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    public void increaseMemberCount(){
+        memberCount++;
+    }
+
+    public void decreaseMemberCount(){
+        if(memberCount > 0){
+            memberCount--;
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 리포트 화면용 팀 요약 (읽기 모델)
+// Member join Team + 집계를 매번 하지 않도록 미리 계산해 둔 테이블, 쓰기는 TeamSummaryRefresher 가 SQL로만 한다
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamSummary {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge;
+    private Integer maxAge;
+
+    // 나이 분포
+    @Column(name = "age_under_20")
+    private long ageUnder20;
+    @Column(name = "age_20s")
+    private long age20s;
+    @Column(name = "age_30s")
+    private long age30s;
+    @Column(name = "age_40s")
+    private long age40s;
+    @Column(name = "age_50_and_over")
+    private long age50AndOver;
+
+    public double getAvgAge(){
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    public Map<String, Long> getAgeHistogram(){
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        histogram.put("~19", ageUnder20);
+        histogram.put("20~29", age20s);
+        histogram.put("30~39", age30s);
+        histogram.put("40~49", age40s);
+        histogram.put("50~", age50AndOver);
+        return histogram;
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 실제로 지워지는 엔티티(Team)의 삭제 기록, 변경 조회(changed since)에서 삭제를 알려주기 위해 남긴다
+// 회원은 소프트 삭제라 member 행 자체가 톰스톤 역할을 한다
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_tombstone_changed", columnList = "entity_type, deleted_date, entity_id"))
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "entity_type")
+    private String entityType;
+    @Column(name = "entity_id")
+    private Long entityId;
+    @Column(name = "deleted_date")
+    private LocalDateTime deletedDate;
+}
@@ -0,0 +1,6 @@
+// Member, Team 이 쓰는 id 생성기 (@GeneratedValue(generator = SnowflakeIdGenerator.NAME))
+@GenericGenerator(name = SnowflakeIdGenerator.NAME, strategy = "study.datajpa.support.SnowflakeIdGenerator")
+package study.datajpa.entity;
+
+import org.hibernate.annotations.GenericGenerator;
+import study.datajpa.support.SnowflakeIdGenerator;
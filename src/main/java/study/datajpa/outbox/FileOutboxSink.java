@@ -0,0 +1,45 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// 한 줄에 메시지 하나씩 JSON 으로 이어 쓴다
+// 싱크는 기본값이 없다: datajpa.outbox.sink 를 지정하지 않으면 OutboxSink 빈이 없어서 애플리케이션이 뜨지 않는다
+// (OutboxRelay, StatsController 가 필요로 한다, 이벤트를 버리는 싱크로 조용히 넘어가지 않도록 일부러 기동 실패로 둔다)
+@Component
+@ConditionalOnProperty(name = "datajpa.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOutboxSink(ObjectMapper objectMapper, @Value("${datajpa.outbox.file:./build/outbox.jsonl}") String file) {
+        this.objectMapper = objectMapper;
+        this.path = Paths.get(file);
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) throws IOException {
+        if(path.getParent() != null){
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxMessage message : messages) {
+                writer.write(objectMapper.writeValueAsString(message));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package study.datajpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.support.AuditClock;
+import study.datajpa.support.TransactionScopedWork;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Member/Team 변경을 같은 트랜잭션 안에서 outbox_event 에 기록한다
+// 쓰기 경로에서 하는 일은 커밋 직전 JDBC 배치 insert 한 번뿐이고, 발행은 OutboxRelay 가 따로 한다
+// 엔티티 이벤트가 없는 쓰기는 여기를 거치지 않아서 outbox 이벤트가 남지 않는다
+// - @Modifying 벌크 연산(bulkAgePlus, reconcileMemberCount ...), deleteInBatch/deleteAllInBatch
+// - TeamMemberCountListener 가 SQL 로 올리고 내리는 team.member_count (Team UPDATED 이벤트 없음)
+// - DataGenerator 의 JDBC 배치 insert
+// MemberWriteBehindBuffer 는 JDBC 로 반영하지만 같은 트랜잭션에서 INSERT_SQL 로 UPDATED 이벤트를 직접 남긴다 (payload 는 바뀐 필드만)
+@Component
+@RequiredArgsConstructor
+public class OutboxEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String RESOURCE_KEY = OutboxEventListener.class.getName() + ".PENDING";
+    public static final String INSERT_SQL =
+            "insert into outbox_event (aggregate_type, aggregate_id, event_type, payload, created_at) values (?, ?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        add(event.getSession(), event.getEntity(), event.getId(), "CREATED", event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        add(event.getSession(), event.getEntity(), event.getId(), "UPDATED", event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        add(event.getSession(), event.getEntity(), event.getId(), "DELETED", event.getPersister(), event.getDeletedState());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void add(EventSource session, Object entity, Serializable id, String eventType,
+                     EntityPersister persister, Object[] state){
+        if(!(entity instanceof Member) && !(entity instanceof Team)){
+            return;
+        }
+        PendingEvent pending = new PendingEvent(entity.getClass().getSimpleName(), (Long) id, eventType,
+                payload(id, persister, state), AuditClock.now());
+        TransactionScopedWork.obtain(session, RESOURCE_KEY, PendingEvents::new).add(pending);
+    }
+
+    // 컬렉션은 빼고 연관 엔티티는 id만 남긴다 (지연 로딩을 건드리지 않도록)
+    private String payload(Serializable id, EntityPersister persister, Object[] state){
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", id);
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if(types[i].isCollectionType()){
+                continue;
+            }
+            Object value = state[i];
+            if(value instanceof Team){
+                value = ((Team) value).getId();
+            } else if(value instanceof Member){
+                value = ((Member) value).getId();
+            }
+            payload.put(names[i], value);
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox payload 변환 실패", e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingEvent {
+        private final String aggregateType;
+        private final Long aggregateId;
+        private final String eventType;
+        private final String payload;
+        private final LocalDateTime createdAt;
+    }
+
+    private static class PendingEvents implements BeforeTransactionCompletionProcess {
+
+        private final List<PendingEvent> events = new ArrayList<>();
+
+        void add(PendingEvent event){
+            events.add(event);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if(events.isEmpty()){
+                return;
+            }
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                    for (PendingEvent event : events) {
+                        ps.setString(1, event.aggregateType);
+                        ps.setLong(2, event.aggregateId);
+                        ps.setString(3, event.eventType);
+                        ps.setString(4, event.payload);
+                        ps.setTimestamp(5, Timestamp.valueOf(event.createdAt));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.outbox;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class OutboxMessage {
+
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType; // CREATED, UPDATED, DELETED
+    private final String payload;   // JSON
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,100 @@
+package study.datajpa.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// outbox_event 를 큰 배치로 꺼내서 싱크에 발행하고, 성공한 것만 지운다
+// 발행 후 삭제 전에 죽으면 다음 주기에 다시 발행된다 (at-least-once)
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String SELECT_SQL =
+            "select id, aggregate_type, aggregate_id, event_type, payload, created_at from outbox_event order by id limit ?";
+    private static final String DELETE_SQL = "delete from outbox_event where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink sink;
+    private final int batchSize;
+
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lagMillis;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, OutboxSink sink,
+                       @Value("${datajpa.outbox.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${datajpa.outbox.poll-interval:1000}",
+            fixedDelayString = "${datajpa.outbox.poll-interval:1000}")
+    public void relay(){
+        try {
+            int relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed == batchSize); // 밀려 있으면 쉬지 않고 계속 비운다
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.warn("outbox relay failed, will retry next poll", e);
+        }
+    }
+
+    private int relayBatch(){
+        List<OutboxMessage> messages = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new OutboxMessage(
+                rs.getLong("id"),
+                rs.getString("aggregate_type"),
+                rs.getLong("aggregate_id"),
+                rs.getString("event_type"),
+                rs.getString("payload"),
+                rs.getTimestamp("created_at").toLocalDateTime()), batchSize);
+        if(messages.isEmpty()){
+            lagMillis = 0;
+            return 0;
+        }
+
+        // 가장 오래 기다린 메시지 기준
+        lagMillis = Duration.between(messages.get(0).getCreatedAt(), LocalDateTime.now()).toMillis();
+        try {
+            sink.publish(messages);
+        } catch (Exception e) {
+            throw new IllegalStateException("outbox publish 실패", e);
+        }
+
+        jdbcTemplate.batchUpdate(DELETE_SQL, messages.stream()
+                .map(message -> new Object[]{message.getId()})
+                .collect(Collectors.toList()));
+        published.addAndGet(messages.size());
+        batches.incrementAndGet();
+        return messages.size();
+    }
+
+    public Map<String, Object> metrics(){
+        long elapsedSeconds = Math.max(1, (System.currentTimeMillis() - startedAt) / 1000);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("published", published.get());
+        result.put("batches", batches.get());
+        result.put("failures", failures.get());
+        result.put("throughputPerSecond", published.get() / elapsedSeconds);
+        result.put("lagMillis", lagMillis);
+        return result;
+    }
+}
@@ -0,0 +1,10 @@
+package study.datajpa.outbox;
+
+import java.util.List;
+
+// 아웃박스 메시지를 실제로 내보내는 곳 (메시지 브로커, 파일 등)
+// 예외를 던지면 배치 전체가 다음 주기에 다시 발행된다 (at-least-once) -> 받는 쪽은 id로 중복을 걸러야 한다
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages) throws Exception;
+}
@@ -0,0 +1,41 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+import study.datajpa.support.FetchProfiler;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 조회 메서드의 결과를 FetchProfiler 에 넘겨서 이후 지연 로딩을 메서드 단위로 기록
+@RequiredArgsConstructor
+public class FetchProfileInterceptor implements MethodInterceptor {
+
+    private final FetchProfiler fetchProfiler;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object result = invocation.proceed();
+
+        // Stream 은 소비하면 안 되고, 저장/삭제/벌크 연산은 조회가 아니다
+        if(result instanceof Stream || AnnotatedElementUtils.hasAnnotation(method, Modifying.class)
+                || method.getName().startsWith("save") || method.getName().startsWith("delete")){
+            return result;
+        }
+        fetchProfiler.afterQuery(key(method), result);
+        return result;
+    }
+
+    // 오버로딩된 findAll 등을 구분하려고 파라미터 타입까지 붙인다
+    static String key(Method method){
+        return "MemberRepository." + method.getName() + Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 큰 IN 절을 잘라서 실행하고 호출한 순서대로 다시 합친다
+// 리스트 길이를 2의 거듭제곱으로 맞추는 건 hibernate.query.in_clause_parameter_padding 이 해준다
+final class InQueryChunks {
+
+    // 패딩 후에도 512개를 넘지 않도록 (DB 파라미터 제한보다 충분히 작게)
+    static final int CHUNK_SIZE = 512;
+
+    private InQueryChunks() {
+    }
+
+    static <K, V> List<V> findAll(Collection<K> keys, Function<List<K>, List<V>> query, Function<V, K> keyOf){
+        List<K> distinctKeys = keys.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if(distinctKeys.isEmpty()){
+            return new ArrayList<>();
+        }
+
+        List<List<K>> chunks = new ArrayList<>();
+        for(int from = 0; from < distinctKeys.size(); from += CHUNK_SIZE){
+            chunks.add(distinctKeys.subList(from, Math.min(from + CHUNK_SIZE, distinctKeys.size())));
+        }
+
+        // 트랜잭션 안에서는 같은 영속성 컨텍스트에 올려야 하니까 순서대로 실행
+        // 트랜잭션 밖이면 청크마다 따로 EntityManager를 쓰므로 병렬로 실행해도 된다
+        Stream<List<K>> stream = chunks.size() > 1 && !TransactionSynchronizationManager.isActualTransactionActive()
+                ? chunks.parallelStream()
+                : chunks.stream();
+        Map<K, List<V>> byKey = stream
+                .flatMap(chunk -> query.apply(chunk).stream())
+                .collect(Collectors.groupingBy(keyOf));
+
+        List<V> result = new ArrayList<>();
+        for(K key : distinctKeys){
+            List<V> values = byKey.get(key);
+            if(values != null){
+                result.addAll(values);
+            }
+        }
+        return result;
+    }
+}
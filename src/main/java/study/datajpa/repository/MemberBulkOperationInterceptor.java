@@ -0,0 +1,29 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class MemberBulkOperationInterceptor implements MethodInterceptor {
+
+    private final List<MemberBulkOperationListener> listeners;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        Method method = invocation.getMethod();
+        if(AnnotatedElementUtils.hasAnnotation(method, Modifying.class) || method.getName().endsWith("InBatch")){
+            for (MemberBulkOperationListener listener : listeners) {
+                listener.afterBulkOperation(method);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,10 @@
+package study.datajpa.repository;
+
+import java.lang.reflect.Method;
+
+// 영속성 컨텍스트를 거치지 않는 MemberRepository 벌크 연산(@Modifying, *InBatch)이 끝난 뒤 호출된다
+// 엔티티 이벤트가 발생하지 않으니 엔티티 리스너로 유지하는 값은 여기서 맞춰줘야 한다
+public interface MemberBulkOperationListener {
+
+    void afterBulkOperation(Method method);
+}
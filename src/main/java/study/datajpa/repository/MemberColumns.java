@@ -0,0 +1,39 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// 대량으로 읽어서 계산만 하는 쪽을 위한 컬럼 단위 결과 (행마다 객체를 만들지 않는다)
+// i 번째 회원 = ids[i], ages[i], teamIds[i] (팀이 없으면 0), usernames[i]
+@Getter
+public class MemberColumns {
+
+    private final long[] ids;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final String[] usernames;
+    private int size;
+
+    public MemberColumns(int capacity) {
+        this.ids = new long[capacity];
+        this.ages = new int[capacity];
+        this.teamIds = new long[capacity];
+        this.usernames = new String[capacity];
+    }
+
+    // select member_id, age, team_id, username 순서
+    public void read(ResultSet rs) throws SQLException {
+        ids[size] = rs.getLong(1);
+        ages[size] = rs.getInt(2);
+        teamIds[size] = rs.getLong(3);
+        usernames[size] = rs.getString(4);
+        size++;
+    }
+
+    // 다음 청크를 읽을 때 afterId 로 넘긴다
+    public long lastId(){
+        return size == 0 ? 0 : ids[size - 1];
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// 회원을 id 순서로 partitions 등분했을 때 각 구간의 첫 id (병렬 집계, 병렬 스캔의 파티션 경계)
+// [min(id), max(id)] 를 값으로 나누면 스노우플레이크 id 는 시간대별로 몰려 있어서 파티션 크기가 크게 벌어진다
+// -> NTILE 로 행 위치 기준으로 나눈다 (인덱스 한 번 훑기)
+public final class MemberIdPartitions {
+
+    private static final String START_IDS_SQL =
+            "select min(member_id) from (" +
+            " select member_id, ntile(?) over (order by member_id) tile from member where deleted_date is null" +
+            ") p group by tile order by 1";
+
+    private MemberIdPartitions() {
+    }
+
+    // 회원이 partitions 보다 적으면 회원 수만큼, 없으면 빈 리스트
+    public static List<Long> startIds(EntityManager em, int partitions){
+        List<?> rows = em.createNativeQuery(START_IDS_SQL)
+                .setParameter(1, partitions)
+                .getResultList();
+        return rows.stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+    }
+}
@@ -71,7 +71,7 @@ public class MemberJpaRepository {
 
     // 순수 JPA를 사용한 벌크 업데이트
     public int bulkAgePlus(int age){
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 1, m.lastModifiedDate = CURRENT_TIMESTAMP where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
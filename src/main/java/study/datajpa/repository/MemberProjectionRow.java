@@ -0,0 +1,44 @@
+package study.datajpa.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// MemberProjection 을 ResultSet 에서 바로 채우는 구현
+// 스프링 데이터는 네이티브 프로젝션 한 줄마다 Tuple + Map + 프록시를 만드는데, 이건 객체 하나뿐
+public final class MemberProjectionRow implements MemberProjection {
+
+    private final Long id;
+    private final String username;
+    private final String teamName;
+
+    public MemberProjectionRow(Long id, String username, String teamName) {
+        this.id = id;
+        this.username = username;
+        this.teamName = teamName;
+    }
+
+    // select member_id, username, team name 순서
+    public static MemberProjectionRow read(ResultSet rs) throws SQLException {
+        return new MemberProjectionRow(rs.getLong(1), rs.getString(2), rs.getString(3));
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getTeamName() {
+        return teamName;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberProjectionRow(id=" + id + ", username=" + username + ", teamName=" + teamName + ")";
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.repository;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import study.datajpa.dto.MemberDto;
+
+import javax.annotation.PreDestroy;
+
+// EntityManager 를 거치지 않는 논블로킹 조회 경로 (R2DBC)
+// 구독자가 request(n) 한 만큼만 행을 꺼내므로 느린 클라이언트가 있어도 목록 전체를 메모리에 올리지 않는다 (backpressure)
+// r2dbc-h2 는 내부적으로 H2 엔진을 호출한 스레드에서 돌리니까 boundedElastic 에서 구독해서 요청 스레드를 막지 않는다
+@Repository
+public class MemberReactiveRepository {
+
+    private static final String SELECT = "select m.member_id, m.username, t.name" +
+            " from member m left join team t on m.team_id = t.team_id where m.deleted_date is null";
+
+    private final ConnectionPool connectionPool;
+
+    // JPA 와 같은 DB 를 본다 (jdbc:h2:tcp://... -> tcp://...)
+    public MemberReactiveRepository(@Value("${spring.datasource.url}") String url,
+                                    @Value("${spring.datasource.username:sa}") String username,
+                                    @Value("${spring.datasource.password:}") String password,
+                                    @Value("${datajpa.reactive.pool-size:10}") int poolSize) {
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring("jdbc:h2:".length()))
+                .username(username)
+                .password(password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+                .maxSize(poolSize)
+                .build());
+    }
+
+    public Flux<MemberDto> findMemberDto(){
+        return query(SELECT + " order by m.member_id");
+    }
+
+    public Flux<MemberDto> findMemberDto(Pageable pageable){
+        return query(SELECT + MemberSortColumns.orderBy(pageable.getSort()) + " limit $1 offset $2", pageable.getPageSize(), pageable.getOffset());
+    }
+
+    public Mono<Long> count(){
+        return Flux.usingWhen(connectionPool.create(),
+                connection -> Flux.from(connection.createStatement("select count(*) from member where deleted_date is null").execute())
+                        .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class))),
+                Connection::close)
+                .subscribeOn(Schedulers.boundedElastic())
+                .single();
+    }
+
+    // 커넥션은 완료, 에러, 취소 어느 경우든 풀로 돌려준다
+    private Flux<MemberDto> query(String sql, Object... params){
+        return Flux.usingWhen(connectionPool.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < params.length; i++) {
+                        statement.bind(i, params[i]);
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.map((row, metadata) ->
+                                    new MemberDto(row.get(0, Long.class), row.get(1, String.class), row.get(2, String.class))));
+                },
+                Connection::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PreDestroy
+    public void close(){
+        connectionPool.dispose();
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Optional;
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member> {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
+    @Memoized
     @Query(name = "Member.findByUsername") // 이 부분을 주석처리 하더라도 정상 동작!
     List<Member> findByUsername(@Param("username") String username);
 
@@ -35,7 +36,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findByNames(@Param("names") Collection<String> names);
 
     List<Member> findListByUsername(String username); // 컬렉션
+    @Memoized
     Member findMemberByUsername(String username); // 단건
+    @Memoized
     Optional<Member> findOptionalByUsername(String username); // 단건 Optional
 
     // count 쿼리의 최적화를 위해 count 쿼리 분리 가능
@@ -45,7 +48,8 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     // 이 어노테이션을 꼭 붙여줘야 executeUpdate 실행
     @Modifying(clearAutomatically = true) // 영속성 컨택스트 초기화 해주는 옵션
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // auditing 이 안 되니 수정 시각도 직접 (ETag 는 MemberWriteVersion 이 벌크 연산 뒤에 올린다)
+    @Query("update Member m set m.age = m.age + 1, m.lastModifiedDate = CURRENT_TIMESTAMP where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team")
@@ -73,13 +77,14 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     <T> List<T> findProjectionsDtoByUsername(@Param("username") String username, Class<T> type);
 
-    @Query(value = "select * from member where username = ?", nativeQuery = true)
+    // 네이티브 쿼리에는 @Where 가 적용되지 않는다
+    @Query(value = "select * from member where username = ? and deleted_date is null", nativeQuery = true)
     Member findByNativeQuery(String username);
 
     // 네이티브 쿼리이기 때문에 카운트 쿼리 꼭 따로 써준다!
     @Query(value = "SELECT m.member_id as id, m.username, t.name as teamName " +
-            "FROM member m left join team t ON m.team_id = t.team_id",
-            countQuery = "SELECT count(*) from member",
+            "FROM member m left join team t ON m.team_id = t.team_id WHERE m.deleted_date is null",
+            countQuery = "SELECT count(*) from member where deleted_date is null",
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
 }
@@ -1,9 +1,46 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.ChangeCursor;
+import study.datajpa.dto.MemberChange;
+import study.datajpa.dto.MemberRow;
+import study.datajpa.dto.TeamAgeStatsDto;
 import study.datajpa.entity.Member;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collector;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // 넘겨준 순서대로 반환, 없는 키는 건너뛴다
+    List<Member> findMembersByIds(Collection<Long> ids);
+    List<Member> findMembersByUsernames(Collection<String> usernames);
+
+    // 집계는 가능하면 DB에서 group by 로
+    List<TeamAgeStatsDto> aggregateAgeByTeam();
+
+    // SQL로 표현할 수 없는 집계 (중앙값, 사용자 정의 통계 등)
+    // member_id 범위를 나눠서 파티션마다 스트리밍으로 읽고 ForkJoinPool 에서 병렬로 모은 뒤 합친다
+    // 파티션은 각자 EntityManager 를 쓰므로 커밋된 데이터만 보인다
+    <R> R aggregateMembers(Collector<MemberRow, ?, R> collector);
+
+    // findProjectionsDtoByUsername 과 같은 동적 프로젝션이지만 프로젝션이 쓰는 컬럼만 조회한다
+    // 중첩 프로젝션(NestedClosedProjections.TeamInfo)도 Team 전체가 아니라 join 으로 필요한 컬럼만
+    <T> List<T> findProjectedByUsername(String username, Class<T> type);
+
+    // findByNativeProjection 과 같은 결과를 ResultSet 에서 바로 MemberProjectionRow 로 읽는다
+    // 정렬은 member_id 고정 (Pageable 의 sort 는 쓰지 않는다), count 쿼리는 필요할 때만
+    Page<MemberProjection> findNativeProjectionRows(Pageable pageable);
+
+    // member_id 가 afterId 보다 큰 회원 limit 명을 배열로 (키셋)
+    MemberColumns findMemberColumns(long afterId, int limit);
+
+    // 증분 추출용: (lastModifiedDate, id) 키셋으로 after 다음부터 until 이전까지 바뀐 회원을 limit 건씩
+    // 소프트 삭제된 회원도 deleted = true 로 나온다 (아카이브로 옮겨지기 전까지)
+    // 늦게 커밋된 트랜잭션은 커서보다 앞선 시각을 가질 수 있으니 until 은 현재 시각보다 여유를 두고 넘긴다
+    List<MemberChange> findMembersChangedSince(ChangeCursor after, LocalDateTime until, int limit);
 }
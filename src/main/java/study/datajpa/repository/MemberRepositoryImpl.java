@@ -1,19 +1,211 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.ChangeCursor;
+import study.datajpa.dto.MemberChange;
+import study.datajpa.dto.MemberRow;
+import study.datajpa.dto.TeamAgeStatsDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String NATIVE_PROJECTION_SQL = "SELECT m.member_id, m.username, t.name " +
+            "FROM member m left join team t ON m.team_id = t.team_id where m.deleted_date is null " +
+            "order by m.member_id limit ? offset ?";
+    private static final String MEMBER_COLUMNS_SQL =
+            "select member_id, age, team_id, username from member where member_id > ? and deleted_date is null " +
+            "order by member_id limit ?";
+
+    // 소프트 삭제된 회원은 팀이 deleted_team_id 에 남아 있다
+    private static final String MEMBERS_CHANGED_SQL =
+            "select member_id, username, age, coalesce(team_id, deleted_team_id), last_modified_date, deleted_date from member" +
+            " where last_modified_date >= ? and (last_modified_date > ? or member_id > ?) and last_modified_date < ?" +
+            " order by last_modified_date, member_id limit ?";
+
     private final EntityManager em;
+    private final EntityManagerFactory emf;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public List<Member> findMembersByIds(Collection<Long> ids) {
+        return InQueryChunks.findAll(ids, chunk ->
+                em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                        .setParameter("ids", chunk)
+                        .getResultList(), Member::getId);
+    }
+
+    @Override
+    public List<Member> findMembersByUsernames(Collection<String> usernames) {
+        return InQueryChunks.findAll(usernames, chunk ->
+                em.createQuery("select m from Member m where m.username in :usernames", Member.class)
+                        .setParameter("usernames", chunk)
+                        .getResultList(), Member::getUsername);
+    }
+
+    @Override
+    public List<TeamAgeStatsDto> aggregateAgeByTeam() {
+        return em.createQuery("select new study.datajpa.dto.TeamAgeStatsDto(t.id, t.name, count(m), min(m.age), max(m.age), avg(m.age))" +
+                " from Member m join m.team t group by t.id, t.name", TeamAgeStatsDto.class)
+                .getResultList();
+    }
+
+    @Override
+    public <T> List<T> findProjectedByUsername(String username, Class<T> type) {
+        ProjectionQuery<T> query = ProjectionQuery.of(type, "Member", "m.username = :username");
+        List<?> rows = em.createQuery(query.getJpql())
+                .setParameter("username", username)
+                .getResultList();
+        return query.map(rows);
+    }
+
+    @Override
+    public <R> R aggregateMembers(Collector<MemberRow, ?, R> collector) {
+        return aggregate(collector);
+    }
+
+    private <A, R> R aggregate(Collector<MemberRow, A, R> collector){
+        // 행 수가 같은 파티션으로 나눈다, 마지막 파티션은 끝까지
+        List<Long> startIds = MemberIdPartitions.startIds(em, Runtime.getRuntime().availableProcessors() * 4);
+        if(startIds.isEmpty()){
+            return collector.finisher().apply(collector.supplier().get());
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        for (int i = 0; i < startIds.size(); i++) {
+            long to = i + 1 < startIds.size() ? startIds.get(i + 1) - 1 : Long.MAX_VALUE;
+            ranges.add(new long[]{startIds.get(i), to});
+        }
+
+        // parallelStream -> 공용 ForkJoinPool, 코어 수만큼 파티션을 동시에 읽는다
+        A result = ranges.parallelStream()
+                .map(r -> aggregateRange(r[0], r[1], collector))
+                .reduce(collector.combiner())
+                .orElseGet(collector.supplier());
+        return collector.finisher().apply(result);
+    }
+
+    private <A> A aggregateRange(long from, long to, Collector<MemberRow, A, ?> collector){
+        A container = collector.supplier().get();
+        BiConsumer<A, MemberRow> accumulator = collector.accumulator();
+
+        EntityManager partitionEm = emf.createEntityManager();
+        try (Stream<MemberRow> rows = partitionEm.createQuery(
+                "select new study.datajpa.dto.MemberRow(m.id, m.username, m.age, t.id)" +
+                " from Member m left join m.team t where m.id between :from and :to", MemberRow.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            rows.forEach(row -> accumulator.accept(container, row));
+        } finally {
+            partitionEm.close();
+        }
+        return container;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberProjection> findNativeProjectionRows(Pageable pageable) {
+        Session session = jdbcSession();
+        List<MemberProjection> content = session.doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(NATIVE_PROJECTION_SQL)) {
+                ps.setInt(1, pageable.getPageSize());
+                ps.setLong(2, pageable.getOffset());
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<MemberProjection> rows = new ArrayList<>(pageable.getPageSize());
+                    while (rs.next()) {
+                        rows.add(MemberProjectionRow.read(rs));
+                    }
+                    return rows;
+                }
+            }
+        });
+        // 마지막 페이지처럼 content 로 전체 개수를 알 수 있으면 count 쿼리를 생략
+        return PageableExecutionUtils.getPage(content, pageable, () -> session.doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT count(*) from member where deleted_date is null");
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MemberColumns findMemberColumns(long afterId, int limit) {
+        return jdbcSession().doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(MEMBER_COLUMNS_SQL)) {
+                ps.setLong(1, afterId);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    MemberColumns columns = new MemberColumns(limit);
+                    while (rs.next()) {
+                        columns.read(rs);
+                    }
+                    return columns;
+                }
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberChange> findMembersChangedSince(ChangeCursor after, LocalDateTime until, int limit) {
+        // @Where 로 가려지는 삭제 행도 읽어야 하므로 JDBC 로
+        return jdbcSession().doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(MEMBERS_CHANGED_SQL)) {
+                Timestamp changedAt = Timestamp.valueOf(after.getChangedAt());
+                ps.setTimestamp(1, changedAt);
+                ps.setTimestamp(2, changedAt);
+                ps.setLong(3, after.getId());
+                ps.setTimestamp(4, Timestamp.valueOf(until));
+                ps.setInt(5, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<MemberChange> changes = new ArrayList<>();
+                    while (rs.next()) {
+                        long teamId = rs.getLong(4);
+                        changes.add(new MemberChange(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                                rs.wasNull() ? null : teamId,
+                                rs.getTimestamp(5).toLocalDateTime(),
+                                rs.getTimestamp(6) != null));
+                    }
+                    return changes;
+                }
+            }
+        });
+    }
+
+    // JDBC 로 직접 읽기 전에 아직 flush 안 된 변경을 반영 (네이티브 쿼리의 자동 flush 와 같은 효과)
+    private Session jdbcSession(){
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            em.flush();
+        }
+        return em.unwrap(Session.class);
+    }
 }
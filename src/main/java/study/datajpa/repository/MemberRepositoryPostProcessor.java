@@ -0,0 +1,76 @@
+package study.datajpa.repository;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import study.datajpa.shard.ShardRouter;
+import study.datajpa.support.FetchProfiler;
+import study.datajpa.shard.ShardRoutingInterceptor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// 스프링 데이터가 만든 MemberRepository 프록시를 한 번 더 감싸서 부가 기능을 붙인다
+// 샤딩이 켜져 있으면 TeamRepository 도 감싸서 샤드로 보낸다
+@Component
+public class MemberRepositoryPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<QueryMemo> queryMemo;
+    private final ObjectProvider<MemberBulkOperationListener> bulkOperationListeners;
+    private final ObjectProvider<ShardRouter> shardRouter;
+    private final ObjectProvider<FetchProfiler> fetchProfiler;
+    private final boolean queryMemoEnabled;
+
+    public MemberRepositoryPostProcessor(ObjectProvider<QueryMemo> queryMemo,
+                                         ObjectProvider<MemberBulkOperationListener> bulkOperationListeners,
+                                         ObjectProvider<ShardRouter> shardRouter,
+                                         ObjectProvider<FetchProfiler> fetchProfiler,
+                                         @Value("${datajpa.query-memo.enabled:false}") boolean queryMemoEnabled) {
+        this.queryMemo = queryMemo;
+        this.bulkOperationListeners = bulkOperationListeners;
+        this.shardRouter = shardRouter;
+        this.fetchProfiler = fetchProfiler;
+        this.queryMemoEnabled = queryMemoEnabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if(bean instanceof TeamRepository){
+            ShardRouter router = shardRouter.getIfAvailable();
+            if(router == null){
+                return bean;
+            }
+            ProxyFactory proxyFactory = new ProxyFactory(bean);
+            proxyFactory.addAdvice(new ShardRoutingInterceptor(router, TeamRepositoryCustom.class));
+            return proxyFactory.getProxy();
+        }
+        if(!(bean instanceof MemberRepository)){
+            return bean;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        // 가장 바깥: 메모이제이션으로 재사용된 결과도 호출자가 지연 로딩하면 기록해야 한다
+        FetchProfiler profiler = fetchProfiler.getIfAvailable();
+        if(profiler != null && profiler.isEnabled()){
+            proxyFactory.addAdvice(new FetchProfileInterceptor(profiler));
+        }
+        List<MemberBulkOperationListener> listeners = bulkOperationListeners.orderedStream().collect(Collectors.toList());
+        if(!listeners.isEmpty()){
+            proxyFactory.addAdvice(new MemberBulkOperationInterceptor(listeners));
+        }
+        if(queryMemoEnabled){
+            proxyFactory.addAdvice(new QueryMemoInterceptor(queryMemo.getObject()));
+        }
+        // 가장 안쪽에 둬서 메모이제이션, 벌크 연산 리스너는 호출한 스레드에서 한 번만 동작
+        ShardRouter router = shardRouter.getIfAvailable();
+        if(router != null){
+            proxyFactory.addAdvice(new ShardRoutingInterceptor(router, MemberRepositoryCustom.class));
+        }
+        if(proxyFactory.getAdvisors().length == 0){
+            return bean;
+        }
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 네이티브 회원 목록 쿼리(member m left join team t)의 order by 절 (MemberReactiveRepository, MemberJsonStreamer)
+// 정렬 가능한 속성만 컬럼으로 바꾸고 그 외는 무시한다 -> 요청 값이 SQL 에 그대로 들어가지 않는다
+public final class MemberSortColumns {
+
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+    static {
+        SORT_COLUMNS.put("id", "m.member_id");
+        SORT_COLUMNS.put("username", "m.username");
+        SORT_COLUMNS.put("age", "m.age");
+        SORT_COLUMNS.put("teamName", "t.name");
+    }
+
+    private MemberSortColumns() {
+    }
+
+    // 같은 값이 있어도 페이지가 흔들리지 않게 member_id 를 마지막 정렬 기준으로
+    public static String orderBy(Sort sort){
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if(column != null){
+                orders.add(column + (order.isAscending() ? " asc" : " desc"));
+            }
+        }
+        orders.add("m.member_id");
+        return " order by " + String.join(", ", orders);
+    }
+}
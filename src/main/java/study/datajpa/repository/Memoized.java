@@ -0,0 +1,10 @@
+package study.datajpa.repository;
+
+import java.lang.annotation.*;
+
+// 같은 트랜잭션 안에서 같은 인자로 다시 호출하면 DB에 가지 않고 이전 결과를 돌려준다
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Memoized {
+}
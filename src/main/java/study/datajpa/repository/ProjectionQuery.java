@@ -0,0 +1,202 @@
+package study.datajpa.repository;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.util.StringUtils;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+// 프로젝션이 실제로 쓰는 컬럼만 select 하는 JPQL 을 만든다
+// - 인터페이스 프로젝션: getter 마다 컬럼 하나, 중첩 인터페이스(TeamInfo)는 left join 해서 필요한 컬럼만
+//   결과는 프록시나 Map 이 아니라 프로젝션 인터페이스를 구현하는 필드 + getter 클래스를 한 번 생성해서 채운다
+// - DTO 클래스: 생성자 파라미터 이름으로 select new ... (UsernameOnlyDto 와 같은 규칙)
+// 중첩은 한 단계(연관 엔티티의 값)까지만, 컬렉션 연관관계는 지원하지 않는다
+final class ProjectionQuery<T> {
+
+    private static final Map<List<Object>, ProjectionQuery<?>> CACHE = new ConcurrentHashMap<>();
+    private static final String ROOT_ALIAS = "m";
+
+    private final String jpql;
+    private final RowFactory rowFactory; // DTO 면 null, Hibernate 가 직접 생성
+
+    private ProjectionQuery(String jpql, RowFactory rowFactory) {
+        this.jpql = jpql;
+        this.rowFactory = rowFactory;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ProjectionQuery<T> of(Class<T> type, String entityName, String where){
+        return (ProjectionQuery<T>) CACHE.computeIfAbsent(Arrays.asList(type, entityName, where),
+                key -> create(type, entityName, where));
+    }
+
+    String getJpql(){
+        return jpql;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> map(List<?> rows){
+        if(rowFactory == null){
+            return (List<T>) rows;
+        }
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+            result.add((T) rowFactory.create(columns));
+        }
+        return result;
+    }
+
+    private static <T> ProjectionQuery<T> create(Class<T> type, String entityName, String where){
+        List<String> selects = new ArrayList<>();
+        List<String> joins = new ArrayList<>();
+        RowFactory rowFactory = null;
+
+        if(type.isInterface()){
+            rowFactory = RowFactory.plan(type, ROOT_ALIAS, selects, joins);
+        } else {
+            selects.add("new " + type.getName() + "(" + constructorArguments(type) + ")");
+        }
+
+        String jpql = "select " + String.join(", ", selects)
+                + " from " + entityName + " " + ROOT_ALIAS
+                + (joins.isEmpty() ? "" : " " + String.join(" ", joins))
+                + (StringUtils.hasText(where) ? " where " + where : "");
+        return new ProjectionQuery<>(jpql, rowFactory);
+    }
+
+    private static String constructorArguments(Class<?> type){
+        Constructor<?> constructor = Arrays.stream(type.getConstructors())
+                .filter(c -> c.getParameterCount() > 0)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("파라미터가 있는 public 생성자가 필요합니다: " + type));
+        String[] names = new DefaultParameterNameDiscoverer().getParameterNames(constructor);
+        if(names == null){
+            throw new IllegalArgumentException("생성자 파라미터 이름을 알 수 없습니다 (-parameters 또는 디버그 정보 필요): " + type);
+        }
+        return Arrays.stream(names)
+                .map(name -> ROOT_ALIAS + "." + name)
+                .collect(Collectors.joining(", "));
+    }
+
+    // 프로젝션 인터페이스 구현 클래스를 만들고 컬럼 -> 필드 세터를 미리 찾아둔다
+    private static class RowFactory {
+
+        private final boolean nested;
+        private MethodHandle constructor;
+        private final List<MethodHandle> setters = new ArrayList<>();
+        private final List<Integer> columns = new ArrayList<>();
+        private final List<MethodHandle> nestedSetters = new ArrayList<>();
+        private final List<RowFactory> nestedFactories = new ArrayList<>();
+
+        private RowFactory(boolean nested) {
+            this.nested = nested;
+        }
+
+        static RowFactory plan(Class<?> type, String alias, List<String> selects, List<String> joins){
+            return plan(type, alias, selects, joins, false);
+        }
+
+        private static RowFactory plan(Class<?> type, String alias, List<String> selects, List<String> joins, boolean nested){
+            RowFactory factory = new RowFactory(nested);
+            DynamicType.Builder<Object> builder = new ByteBuddy()
+                    .subclass(Object.class)
+                    .implement(type)
+                    .name(type.getName() + "$Row");
+
+            Map<String, Class<?>> scalarFields = new LinkedHashMap<>();
+            Map<String, Class<?>> nestedFields = new LinkedHashMap<>();
+            for (Method getter : type.getMethods()) {
+                String property = propertyName(getter);
+                if(property == null){
+                    continue;
+                }
+                Class<?> returnType = getter.getReturnType();
+                builder = builder.defineField(property, returnType, Visibility.PUBLIC)
+                        .method(named(getter.getName())).intercept(FieldAccessor.ofField(property));
+
+                if(returnType.isInterface() && !Collection.class.isAssignableFrom(returnType)){
+                    String joinAlias = alias + "_" + property;
+                    joins.add("left join " + alias + "." + property + " " + joinAlias);
+                    nestedFields.put(property, returnType);
+                    factory.nestedFactories.add(plan(returnType, joinAlias, selects, joins, true));
+                } else {
+                    scalarFields.put(property, returnType);
+                    factory.columns.add(selects.size());
+                    selects.add(alias + "." + property);
+                }
+            }
+
+            Class<?> rowClass = builder.make()
+                    .load(type.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                    .getLoaded();
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                factory.constructor = lookup.findConstructor(rowClass, MethodType.methodType(void.class));
+                for (Map.Entry<String, Class<?>> field : scalarFields.entrySet()) {
+                    factory.setters.add(lookup.findSetter(rowClass, field.getKey(), field.getValue()));
+                }
+                for (Map.Entry<String, Class<?>> field : nestedFields.entrySet()) {
+                    factory.nestedSetters.add(lookup.findSetter(rowClass, field.getKey(), field.getValue()));
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("프로젝션 구현 클래스 생성 실패: " + type, e);
+            }
+            return factory;
+        }
+
+        Object create(Object[] row){
+            try {
+                boolean empty = true;
+                Object instance = constructor.invoke();
+                for (int i = 0; i < setters.size(); i++) {
+                    Object value = row[columns.get(i)];
+                    if(value != null){
+                        empty = false;
+                        setters.get(i).invoke(instance, value);
+                    }
+                }
+                for (int i = 0; i < nestedSetters.size(); i++) {
+                    Object nestedRow = nestedFactories.get(i).create(row);
+                    if(nestedRow != null){
+                        empty = false;
+                        nestedSetters.get(i).invoke(instance, nestedRow);
+                    }
+                }
+                // left join 으로 연관 엔티티가 없으면 중첩 프로젝션은 null (스프링 데이터와 같은 동작)
+                return nested && empty ? null : instance;
+            } catch (Throwable e) {
+                throw new IllegalStateException("프로젝션 매핑 실패", e);
+            }
+        }
+
+        private static String propertyName(Method getter){
+            if(getter.isDefault() || Modifier.isStatic(getter.getModifiers()) || getter.getParameterCount() > 0){
+                return null;
+            }
+            String name = getter.getName();
+            if(name.startsWith("get") && name.length() > 3){
+                return Introspector.decapitalize(name.substring(3));
+            }
+            if(name.startsWith("is") && name.length() > 2 && getter.getReturnType() == boolean.class){
+                return Introspector.decapitalize(name.substring(2));
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 트랜잭션 범위의 쿼리 결과 저장소
+// 트랜잭션이 끝나면 같이 사라지고, Member 변경이 flush 되거나 벌크 연산이 실행되면 비운다
+// 아직 flush 안 된 변경이 있으면 캐시를 쓰지 않는다 (캐시를 쓰면 쿼리 전 자동 flush 도 일어나지 않으니까)
+@Component
+public class QueryMemo {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private static final String RESOURCE_KEY = QueryMemo.class.getName() + ".ENTRIES";
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // 트랜잭션이 없으면 null -> 캐시하지 않고 그냥 실행
+    Map<Object, Object> currentEntries(){
+        if(!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()){
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> entries = (Map<Object, Object>) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if(entries == null){
+            Map<Object, Object> newEntries = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newEntries);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                // REQUIRES_NEW 로 다른 영속성 컨텍스트가 열리면 결과를 공유하면 안 된다
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newEntries);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+            });
+            entries = newEntries;
+        }
+        return entries;
+    }
+
+    // persist 대기 중인 INSERT 나 더티 체킹으로 나갈 UPDATE 가 있으면 true
+    // isDirty 는 SQL 없이 자동 flush 와 같은 더티 체크만 한다
+    boolean hasPendingChanges(){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        return session.getActionQueue().hasAnyQueuedActions() || session.isDirty();
+    }
+
+    // 엔티티 리스너처럼 빈이 아닌 곳에서도 호출할 수 있게 static
+    public static void invalidateCurrent(){
+        Object entries = TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if(entries != null){
+            ((Map<?, ?>) entries).clear();
+        }
+    }
+
+    void hit(){
+        hits.incrementAndGet();
+    }
+
+    void miss(){
+        misses.incrementAndGet();
+    }
+
+    // 캐시 히트 수 = 아낀 DB 왕복 수
+    public long getSavedRoundTrips(){
+        return hits.get();
+    }
+
+    public long getExecutedQueries(){
+        return misses.get();
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class QueryMemoInterceptor implements MethodInterceptor {
+
+    private static final Object NULL_RESULT = new Object();
+
+    private final QueryMemo queryMemo;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+
+        // 벌크 연산은 영속성 컨텍스트를 무시하니까 캐시도 같이 버린다 (deleteInBatch 같은 메서드 포함)
+        if(AnnotatedElementUtils.hasAnnotation(method, Modifying.class) || method.getName().startsWith("delete")){
+            try {
+                return invocation.proceed();
+            } finally {
+                QueryMemo.invalidateCurrent();
+            }
+        }
+
+        if(!AnnotatedElementUtils.hasAnnotation(method, Memoized.class)){
+            return invocation.proceed();
+        }
+
+        Map<Object, Object> entries = queryMemo.currentEntries();
+        if(entries == null){
+            return invocation.proceed();
+        }
+
+        Key key = new Key(method, invocation.getArguments());
+        Object cached = entries.get(key);
+        if(cached != null && queryMemo.hasPendingChanges()){
+            // 쿼리를 실행해서 자동 flush 가 일어나게 한다 (flush 되면 리스너가 다시 비움)
+            entries.clear();
+            cached = null;
+        }
+        if(cached != null){
+            queryMemo.hit();
+            return cached == NULL_RESULT ? null : cached;
+        }
+
+        Object result = invocation.proceed();
+        queryMemo.miss();
+        entries.put(key, result == null ? NULL_RESULT : result);
+        return result;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final Method method;
+        private final Object[] args;
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Member 변경이 DB로 flush 되는 시점에 호출된다
+public class QueryMemoInvalidator {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Object entity){
+        QueryMemo.invalidateCurrent();
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.ScanCheckpoint;
+
+import java.util.List;
+
+public interface ScanCheckpointRepository extends JpaRepository<ScanCheckpoint, Long> {
+
+    List<ScanCheckpoint> findByJobNameOrderByPartitionNo(String jobName);
+
+    @Transactional
+    @Modifying
+    @Query("update ScanCheckpoint c set c.lastId = :lastId where c.id = :id")
+    int updateLastId(@Param("id") Long id, @Param("lastId") long lastId);
+
+    @Transactional
+    @Modifying
+    @Query("update ScanCheckpoint c set c.done = true where c.id = :id")
+    int markDone(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ScanCheckpoint c where c.jobName = :jobName")
+    int deleteByJobName(@Param("jobName") String jobName);
+}
@@ -1,8 +1,29 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Team;
+import study.datajpa.shard.ShardLocal;
 
-public interface TeamRepository extends JpaRepository<Team, Long> {
+import java.util.List;
 
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    // member_count 인덱스만 타고 한 번에 조회
+    @Query("select t from Team t order by t.memberCount desc")
+    List<Team> findAllOrderByMemberCount();
+
+    // 실제 회원 수와 다른 팀만 고친다
+    // JPQL 벌크 업데이트는 서브쿼리의 team_id 에 별칭이 붙지 않아서 네이티브로 작성
+    // 회원은 팀과 같은 샤드에 있으니 샤드마다 따로 고쳐도 된다 (트랜잭션 밖에서 부르면 모든 샤드)
+    @ShardLocal
+    @Transactional
+    @Modifying
+    @Query(value = "update team t set updated_date = current_timestamp, member_count = " +
+            "(select count(*) from member m where m.team_id = t.team_id and m.deleted_date is null) " +
+            "where member_count <> (select count(*) from member m where m.team_id = t.team_id and m.deleted_date is null)",
+            nativeQuery = true)
+    int reconcileMemberCount();
 }
@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+import study.datajpa.dto.ChangeCursor;
+import study.datajpa.dto.TeamChange;
+import study.datajpa.entity.Team;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+
+    // 넘겨준 순서대로 반환, 없는 키는 건너뛴다
+    List<Team> findTeamsByIds(Collection<Long> ids);
+
+    // MemberRepositoryCustom.findMembersChangedSince 와 같은 키셋 (updatedDate, id)
+    // 삭제된 팀은 tombstone 에서 읽어서 deleted = true 로 같이 정렬된다
+    List<TeamChange> findTeamsChangedSince(ChangeCursor after, LocalDateTime until, int limit);
+}
@@ -0,0 +1,71 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.ChangeCursor;
+import study.datajpa.dto.TeamChange;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    // 살아 있는 팀과 톰스톤을 각각 키셋 인덱스로 읽고 합친다
+    private static final String TEAMS_CHANGED_SQL =
+            "select id, name, member_count, changed_at, deleted from (" +
+            " select team_id id, name, member_count, updated_date changed_at, false deleted from team" +
+            "  where updated_date >= ? and (updated_date > ? or team_id > ?) and updated_date < ?" +
+            " union all" +
+            " select entity_id id, null name, 0 member_count, deleted_date changed_at, true deleted from tombstone" +
+            "  where entity_type = 'Team' and deleted_date >= ? and (deleted_date > ? or entity_id > ?) and deleted_date < ?" +
+            ") changes order by changed_at, id, deleted limit ?";
+
+    private final EntityManager em;
+
+    @Override
+    public List<Team> findTeamsByIds(Collection<Long> ids) {
+        return InQueryChunks.findAll(ids, chunk ->
+                em.createQuery("select t from Team t where t.id in :ids", Team.class)
+                        .setParameter("ids", chunk)
+                        .getResultList(), Team::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TeamChange> findTeamsChangedSince(ChangeCursor after, LocalDateTime until, int limit) {
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            em.flush();
+        }
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(TEAMS_CHANGED_SQL)) {
+                Timestamp changedAt = Timestamp.valueOf(after.getChangedAt());
+                Timestamp untilAt = Timestamp.valueOf(until);
+                for (int offset : new int[]{0, 4}) {
+                    ps.setTimestamp(offset + 1, changedAt);
+                    ps.setTimestamp(offset + 2, changedAt);
+                    ps.setLong(offset + 3, after.getId());
+                    ps.setTimestamp(offset + 4, untilAt);
+                }
+                ps.setInt(9, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<TeamChange> changes = new ArrayList<>();
+                    while (rs.next()) {
+                        changes.add(new TeamChange(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                                rs.getTimestamp(4).toLocalDateTime(), rs.getBoolean(5)));
+                    }
+                    return changes;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.datajpa.entity.TeamSummary;
+
+import java.util.Optional;
+
+// 대시보드 조회는 조인 + 집계 없이 한 줄만 읽는다
+public interface TeamSummaryRepository extends JpaRepository<TeamSummary, Long> {
+
+    Optional<TeamSummary> findByTeamName(String teamName);
+}
@@ -0,0 +1,53 @@
+package study.datajpa.shard;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+// 현재 스레드가 사용할 샤드 번호, ShardRoutingDataSource 가 커넥션을 얻을 때 읽는다
+// 트랜잭션은 시작할 때 커넥션을 잡으므로 트랜잭션 밖에서 정해야 한다
+// @Transactional 서비스가 다른 샤드의 엔티티를 다루려면 호출하는 쪽에서 callOn 으로 감싼다
+//   ShardContext.callOn(shardRouter.shardOfId(id), () -> memberService.rename(id, name))
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    // 정해지지 않았으면 null -> 기본 샤드(0)
+    public static Integer current(){
+        return CURRENT.get();
+    }
+
+    // 정해지지 않았으면 기본 샤드(0), 트랜잭션 안이면 그 트랜잭션이 잡은 샤드
+    public static int currentOrDefault(){
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    // 리포지토리 라우팅을 거치지 않는 코드(JdbcTemplate 등)를 특정 샤드에서 실행할 때
+    // 트랜잭션 안에서 바꾸면 JPA 와 JdbcTemplate 은 이미 잡은 커넥션을 그대로 쓰니까 막는다
+    public static <T> T callOn(int shard, Supplier<T> work){
+        if(TransactionSynchronizationManager.isActualTransactionActive() && shard != currentOrDefault()){
+            throw new IllegalStateException("트랜잭션이 샤드 " + currentOrDefault() + " 에 묶여 있어서 샤드 " + shard
+                    + " 로 바꿀 수 없습니다. 트랜잭션을 시작하기 전에 정하세요");
+        }
+        Integer previous = bind(shard);
+        try {
+            return work.get();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    static Integer bind(Integer shard){
+        Integer previous = CURRENT.get();
+        if(shard == null){
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,31 @@
+package study.datajpa.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+// datajpa.shard.urls 의 DB 마다 커넥션 풀을 만들고 ShardRoutingDataSource 로 묶는다
+// 드라이버, 계정은 spring.datasource 설정을 그대로 쓴다
+@Configuration
+@ConditionalOnProperty(name = "datajpa.shard.enabled", havingValue = "true")
+public class ShardDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, @Value("${datajpa.shard.urls}") String[] urls) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int i = 0; i < urls.length; i++) {
+            shards.put(i, properties.initializeDataSourceBuilder().url(urls[i].trim()).build());
+        }
+
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(shards.get(0));
+        return dataSource;
+    }
+}
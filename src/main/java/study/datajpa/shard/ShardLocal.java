@@ -0,0 +1,14 @@
+package study.datajpa.shard;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 샤드마다 따로 실행해도 결과가 맞는 벌크 쓰기 (예: 같은 샤드의 회원 수로 팀을 고치는 쿼리)
+// 트랜잭션 안에서는 그 트랜잭션의 샤드에서만, 밖에서는 모든 샤드에서 실행된다
+// 붙이지 않은 벌크 쓰기는 트랜잭션 안에서 호출하면 ShardRoutingInterceptor 가 막는다 (한 샤드만 바뀌므로)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardLocal {
+}
@@ -0,0 +1,135 @@
+package study.datajpa.shard;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.support.SnowflakeIdGenerator;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// 엔티티 -> 샤드 결정
+// id 를 만들 때 저장 중인 샤드 번호를 id 에 넣어두므로(SnowflakeIdGenerator) id 만 보고 샤드를 알 수 있다
+// 회원은 팀과 같은 샤드에 저장해서 member - team 조인이 한 샤드 안에서 끝나게 한다
+@Component
+@ConditionalOnProperty(name = "datajpa.shard.enabled", havingValue = "true")
+public class ShardRouter {
+
+    private final int shardCount;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ExecutorService executor;
+
+    public ShardRouter(@Value("${datajpa.shard.urls}") String[] urls,
+                       ObjectProvider<PlatformTransactionManager> transactionManager) {
+        if(urls.length > SnowflakeIdGenerator.MAX_SHARDS){
+            throw new IllegalArgumentException("샤드는 최대 " + SnowflakeIdGenerator.MAX_SHARDS + "개");
+        }
+        this.shardCount = urls.length;
+        this.transactionManager = transactionManager;
+        this.executor = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getShardCount(){
+        return shardCount;
+    }
+
+    public int shardOfId(long id){
+        int shard = SnowflakeIdGenerator.shardOf(id);
+        if(id < 1 || shard >= shardCount){
+            throw new IllegalArgumentException("샤드 범위를 벗어난 id: " + id);
+        }
+        return shard;
+    }
+
+    // 이미 저장된 엔티티는 id 로, 새 회원은 팀을 따라가고, 팀이 없으면 돌아가면서
+    // 다른 샤드의 팀으로 옮기는 것은 지원하지 않는다 (회원은 원래 샤드에 남는다)
+    public int shardOf(Object entity){
+        return shardOf(entity, null);
+    }
+
+    // 아직 샤드가 정해지지 않은 새 엔티티는 preferred(트랜잭션이 잡은 샤드)가 있으면 그리로
+    public int shardOf(Object entity, Integer preferred){
+        if(entity instanceof Member){
+            Member member = (Member) entity;
+            if(member.getId() != null){
+                return shardOfId(member.getId());
+            }
+            if(member.getTeam() != null && member.getTeam().getId() != null){
+                return shardOfId(member.getTeam().getId());
+            }
+            return preferred != null ? preferred : nextShard();
+        }
+        if(entity instanceof Team){
+            Team team = (Team) entity;
+            if(team.getId() != null){
+                return shardOfId(team.getId());
+            }
+            return preferred != null ? preferred : nextShard();
+        }
+        return 0;
+    }
+
+    public int nextShard(){
+        return Math.floorMod(next.getAndIncrement(), shardCount);
+    }
+
+    <T> T onShard(int shard, Supplier<T> work){
+        return ShardContext.callOn(shard, work);
+    }
+
+    // 모든 샤드에서 동시에 실행, 샤드마다 별도 트랜잭션 (결과는 샤드 번호 순서)
+    // local 샤드는 호출한 스레드에서 지금 트랜잭션으로 실행한다 (아직 커밋 안 된 변경이 보이도록)
+    <T> List<T> onEachShard(Supplier<T> work, Integer local){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager.getObject());
+        List<Future<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(local != null && local == shard
+                    ? null
+                    : executor.submit(() -> onShard(target, () -> transactionTemplate.execute(status -> work.get()))));
+        }
+        T localResult = local != null ? work.get() : null;
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            if(future == null){
+                results.add(localResult);
+                continue;
+            }
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,262 @@
+package study.datajpa.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 리포지토리 호출을 샤드로 보낸다
+// - 엔티티/id 를 받는 메서드(save, delete, findById ...): 그 엔티티의 샤드 하나
+// - 엔티티/id 컬렉션(saveAll, findAllById, deleteInBatch ...): 샤드별로 나눠서 각각 호출
+// - 그 외 조회, 벌크 연산: 모든 샤드에 동시에 보내고(scatter) 결과를 합친다(gather)
+//   Page 는 샤드마다 offset + size 건을 받아서 정렬 기준으로 병합한 뒤 잘라낸다
+//
+// 트랜잭션(또는 ShardContext.callOn)이 이미 샤드를 잡고 있으면 커넥션을 바꿀 수 없다
+// - 엔티티/id 가 다른 샤드 것이면 조용히 잘못된 샤드에서 실행하지 않고 예외 (트랜잭션 전에 callOn 으로 정할 것)
+// - 조회 scatter 는 그 샤드는 지금 트랜잭션에서, 나머지는 각자 트랜잭션에서 읽는다
+// - 벌크 쓰기 scatter 는 샤드 간 원자성이 없으니 트랜잭션 안에서는 막는다 (@ShardLocal 이면 그 샤드만)
+// 커스텀 구현(MemberRepositoryImpl 등)은 자체 커넥션/스레드를 써서 샤드를 따라가지 못하므로 막는다
+@RequiredArgsConstructor
+public class ShardRoutingInterceptor implements MethodInterceptor {
+
+    private static final Set<String> ID_METHODS = new HashSet<>(Arrays.asList("findById", "existsById", "deleteById", "getOne"));
+
+    private final ShardRouter router;
+    private final Class<?> customFragment;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if(method.getDeclaringClass() == Object.class){
+            return invocation.proceed();
+        }
+        if(method.getDeclaringClass() == customFragment){
+            throw new UnsupportedOperationException("샤딩이 켜져 있으면 커스텀 구현 메서드는 쓸 수 없습니다: " + method.getName());
+        }
+
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        Integer bound = inTransaction ? Integer.valueOf(ShardContext.currentOrDefault()) : ShardContext.current();
+        Object[] args = invocation.getArguments();
+
+        Integer shard = route(method, args, bound);
+        if(shard != null){
+            if(bound != null){
+                checkBound(method, bound, Collections.singleton(shard));
+                return invocation.proceed();
+            }
+            return router.onShard(shard, () -> proceed(invocation, args));
+        }
+
+        for (int i = 0; i < args.length; i++) {
+            Map<Integer, List<Object>> byShard = splitByShard(args[i], bound);
+            if(byShard != null){
+                if(bound != null){
+                    checkBound(method, bound, byShard.keySet());
+                    return invocation.proceed();
+                }
+                return proceedByShard(invocation, args, i, byShard);
+            }
+        }
+
+        if(bound != null && (!inTransaction || "flush".equals(method.getName()))){
+            // callOn 으로 샤드를 정하고 부른 것, 또는 지금 커넥션에 대한 flush
+            return invocation.proceed();
+        }
+        if(inTransaction && isWrite(method)){
+            if(AnnotatedElementUtils.hasAnnotation(method, ShardLocal.class)){
+                return invocation.proceed();
+            }
+            throw new IllegalStateException("트랜잭션 안에서는 모든 샤드에 쓰는 " + method.getName()
+                    + " 를 호출할 수 없습니다 (샤드 " + bound + " 만 바뀝니다). 트랜잭션 밖에서 호출하면 샤드마다 따로 커밋됩니다");
+        }
+        return scatterGather(invocation, args, bound);
+    }
+
+    private void checkBound(Method method, int bound, Set<Integer> shards){
+        for (Integer shard : shards) {
+            if(shard != bound){
+                throw new IllegalStateException(method.getName() + " 의 대상은 샤드 " + shard + " 인데 지금 샤드 " + bound
+                        + " 에 묶여 있습니다. 트랜잭션을 시작하기 전에 ShardContext.callOn 으로 샤드를 정하세요");
+            }
+        }
+    }
+
+    // @Modifying 벌크 연산, deleteAll, deleteAllInBatch ...
+    private boolean isWrite(Method method){
+        return AnnotatedElementUtils.hasAnnotation(method, Modifying.class) || method.getName().startsWith("delete");
+    }
+
+    private Integer route(Method method, Object[] args, Integer bound){
+        for (Object arg : args) {
+            if(arg instanceof Member || arg instanceof Team){
+                return router.shardOf(arg, bound);
+            }
+        }
+        if(ID_METHODS.contains(method.getName()) && args.length == 1 && args[0] instanceof Long){
+            return router.shardOfId((Long) args[0]);
+        }
+        return null;
+    }
+
+    // 엔티티나 id 로만 이루어진 컬렉션이면 샤드별로 나눈다 (빈 컬렉션은 어느 샤드에도 보내지 않는다)
+    private Map<Integer, List<Object>> splitByShard(Object arg, Integer bound){
+        if(!(arg instanceof Collection)){
+            return null;
+        }
+        Map<Integer, List<Object>> byShard = new TreeMap<>();
+        for (Object value : (Iterable<?>) arg) {
+            int shard;
+            if(value instanceof Member || value instanceof Team){
+                shard = router.shardOf(value, bound);
+            } else if(value instanceof Long){
+                shard = router.shardOfId((Long) value);
+            } else {
+                return null;
+            }
+            byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(value);
+        }
+        return byShard;
+    }
+
+    // 쓰기는 샤드마다 따로 커밋된다 (샤드 간 원자성 없음)
+    private Object proceedByShard(MethodInvocation invocation, Object[] args, int index, Map<Integer, List<Object>> byShard){
+        List<Object> results = new ArrayList<>();
+        for (Map.Entry<Integer, List<Object>> entry : byShard.entrySet()) {
+            Object[] shardArgs = args.clone();
+            shardArgs[index] = entry.getValue();
+            results.add(router.onShard(entry.getKey(), () -> proceed(invocation, shardArgs)));
+        }
+        return invocation.getMethod().getReturnType() == void.class ? null : concat(results);
+    }
+
+    private Object scatterGather(MethodInvocation invocation, Object[] args, Integer local){
+        Pageable pageable = null;
+        Sort sort = Sort.unsorted();
+        Object[] shardArgs = args.clone();
+        for (int i = 0; i < args.length; i++) {
+            if(args[i] instanceof Pageable){
+                pageable = (Pageable) args[i];
+                sort = pageable.getSort();
+                if(pageable.isPaged()){
+                    // 샤드마다 앞쪽 offset + size 건을 받아야 병합 후 원하는 구간을 정확히 자를 수 있다
+                    shardArgs[i] = PageRequest.of(0, (int) (pageable.getOffset() + pageable.getPageSize()), sort);
+                }
+            } else if(args[i] instanceof Sort){
+                sort = (Sort) args[i];
+            }
+        }
+
+        List<Object> results = router.onEachShard(() -> proceed(invocation, shardArgs), local);
+        return merge(invocation.getMethod().getReturnType(), results, pageable, sort);
+    }
+
+    private Object merge(Class<?> returnType, List<Object> results, Pageable pageable, Sort sort){
+        if(returnType == void.class){
+            return null;
+        }
+        if(Page.class.isAssignableFrom(returnType)){
+            List<Object> content = new ArrayList<>();
+            long total = 0;
+            for (Object result : results) {
+                Page<?> page = (Page<?>) result;
+                content.addAll(page.getContent());
+                total += page.getTotalElements();
+            }
+            sort(content, sort);
+            if(pageable == null || pageable.isUnpaged()){
+                return new PageImpl<>(content, Pageable.unpaged(), total);
+            }
+            int from = (int) Math.min(pageable.getOffset(), content.size());
+            int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), content.size());
+            return new PageImpl<>(new ArrayList<>(content.subList(from, to)), pageable, total);
+        }
+        if(Slice.class.isAssignableFrom(returnType) || Stream.class.isAssignableFrom(returnType)){
+            throw new UnsupportedOperationException("샤드 병합을 지원하지 않는 반환 타입: " + returnType.getName());
+        }
+        if(Iterable.class.isAssignableFrom(returnType)){
+            List<Object> content = concat(results);
+            sort(content, sort);
+            return content;
+        }
+        if(returnType == Optional.class){
+            List<Object> found = new ArrayList<>();
+            for (Object result : results) {
+                ((Optional<?>) result).ifPresent(found::add);
+            }
+            return Optional.ofNullable(single(found));
+        }
+        if(returnType == boolean.class || returnType == Boolean.class){
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if(returnType == long.class || returnType == Long.class){
+            return results.stream().mapToLong(result -> ((Number) result).longValue()).sum();
+        }
+        if(returnType == int.class || returnType == Integer.class){
+            return results.stream().mapToInt(result -> ((Number) result).intValue()).sum();
+        }
+        // 단건 조회
+        return single(results.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    // 샤드 하나에서 두 건이 나온 것과 똑같이 취급한다 (아무거나 고르지 않는다)
+    private Object single(List<Object> found){
+        if(found.size() > 1){
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private List<Object> concat(List<Object> results){
+        List<Object> content = new ArrayList<>();
+        for (Object result : results) {
+            if(result != null){
+                ((Iterable<?>) result).forEach(content::add);
+            }
+        }
+        return content;
+    }
+
+    // 샤드별로 이미 정렬된 결과를 이어 붙였으므로 TimSort 가 사실상 k-way 병합으로 동작한다
+    // null 은 H2 와 같이 오름차순에서 앞, 내림차순에서 뒤
+    @SuppressWarnings("unchecked")
+    private void sort(List<Object> content, Sort sort){
+        if(sort.isUnsorted()){
+            return;
+        }
+        Comparator<Object> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Object> byProperty = Comparator.<Object, Comparable<Object>>comparing(
+                    value -> (Comparable<Object>) new BeanWrapperImpl(value).getPropertyValue(order.getProperty()),
+                    Comparator.nullsFirst(Comparator.<Comparable<Object>>naturalOrder()));
+            if(order.isDescending()){
+                byProperty = byProperty.reversed();
+            }
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        content.sort(comparator);
+    }
+
+    private static Object proceed(MethodInvocation invocation, Object[] args){
+        try {
+            return ((ProxyMethodInvocation) invocation).invocableClone(args).proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.shard;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// 하이버네이트는 기본 샤드(0)에만 스키마를 만든다
+// EntityManagerFactory 가 만들어진 직후, 리포지토리가 쓰기 전에 H2 SCRIPT 로 뽑은 DDL 을 나머지 샤드에 그대로 실행한다
+@Component
+@ConditionalOnProperty(name = "datajpa.shard.enabled", havingValue = "true")
+public class ShardSchemaReplicator implements BeanPostProcessor {
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectProvider<ShardRouter> shardRouter;
+    private final String ddlAuto;
+
+    public ShardSchemaReplicator(ObjectProvider<DataSource> dataSource,
+                                 ObjectProvider<ShardRouter> shardRouter,
+                                 @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if(!(bean instanceof EntityManagerFactory)){
+            return bean;
+        }
+        // 기존 데이터를 지우므로 스키마를 새로 만드는 모드에서만
+        if(!ddlAuto.startsWith("create")){
+            return bean;
+        }
+
+        ShardRouter router = shardRouter.getObject();
+        List<String> script = ShardContext.callOn(0, this::script);
+        for (int shard = 1; shard < router.getShardCount(); shard++) {
+            ShardContext.callOn(shard, () -> replay(script));
+        }
+        return bean;
+    }
+
+    private List<String> script(){
+        List<String> statements = new ArrayList<>();
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("script nodata")) {
+            while (rs.next()) {
+                String sql = rs.getString(1);
+                if(!sql.startsWith("--")){ // 행 수 주석
+                    statements.add(sql);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("샤드 스키마 복제 실패", e);
+        }
+        return statements;
+    }
+
+    private Void replay(List<String> script){
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("샤드 스키마 복제 실패", e);
+        }
+        return null;
+    }
+}
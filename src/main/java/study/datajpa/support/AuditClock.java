@@ -0,0 +1,34 @@
+package study.datajpa.support;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+// 생성/수정 시각을 채우는 시간 소스
+// JpaBaseEntity 콜백(엔티티 메서드라 빈 주입이 안 된다)과 스프링 데이터 auditing(DateTimeProvider)이 같이 쓴다
+// 기본은 시스템 시계, AuditClockConfig 가 CoarseClock 으로 바꾼다
+public final class AuditClock {
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    private AuditClock() {
+    }
+
+    public static LocalDateTime now(){
+        Clock current = clock;
+        if(current instanceof CoarseClock){
+            return ((CoarseClock) current).localDateTime();
+        }
+        return LocalDateTime.now(current);
+    }
+
+    public static void use(Clock newClock){
+        clock = newClock;
+    }
+
+    // 멈춘 시계가 아직 쓰이고 있을 때만 시스템 시계로 되돌린다 (다른 컨텍스트가 바꿔둔 시계는 그대로)
+    static synchronized void reset(Clock stopped){
+        if(clock == stopped){
+            clock = Clock.systemDefaultZone();
+        }
+    }
+}
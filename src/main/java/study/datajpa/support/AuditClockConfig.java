@@ -0,0 +1,40 @@
+package study.datajpa.support;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Optional;
+
+// auditing 시간 소스 설정
+// - datajpa.audit.clock=coarse(기본): CoarseClock, system: LocalDateTime.now()
+// - datajpa.audit.db-created-date=true: created_date 는 INSERT 에서 빼고 DB 기본값으로
+@Configuration
+public class AuditClockConfig {
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = "datajpa.audit.clock", havingValue = "coarse", matchIfMissing = true)
+    public CoarseClock coarseClock(){
+        CoarseClock clock = new CoarseClock(ZoneId.systemDefault());
+        AuditClock.use(clock);
+        return clock;
+    }
+
+    // 기본 CurrentDateTimeProvider 대신 (@EnableJpaAuditing dateTimeProviderRef)
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider(){
+        return () -> Optional.of(AuditClock.now());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "datajpa.audit.db-created-date", havingValue = "true")
+    public HibernatePropertiesCustomizer databaseCreatedDateCustomizer(){
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> Collections.singletonList(new DatabaseCreatedDateIntegrator()));
+    }
+}
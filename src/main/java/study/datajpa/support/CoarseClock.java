@@ -0,0 +1,75 @@
+package study.datajpa.support;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// 백그라운드 스레드가 1ms 마다 현재 시각을 갱신해두는 시계
+// 읽는 쪽은 volatile 필드만 읽으므로 시스템 콜, 시간대 계산, LocalDateTime 할당이 없다 (같은 ms 안에서는 같은 인스턴스)
+// 대신 정밀도는 ms 단위이고 스레드 스케줄링만큼 늦을 수 있다
+public class CoarseClock extends Clock {
+
+    private final ZoneId zone;
+    private final Thread ticker;
+    private volatile long millis;
+    private volatile LocalDateTime localDateTime;
+    private volatile boolean running = true;
+
+    public CoarseClock(ZoneId zone) {
+        this.zone = zone;
+        tick();
+        this.ticker = new Thread(this::run, "coarse-clock");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    public LocalDateTime localDateTime(){
+        return localDateTime;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : Clock.system(zone);
+    }
+
+    public void stop(){
+        running = false;
+        ticker.interrupt();
+        AuditClock.reset(this);
+    }
+
+    private void run(){
+        while (running) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                return;
+            }
+            tick();
+        }
+    }
+
+    private void tick(){
+        long now = System.currentTimeMillis();
+        if(now != millis){
+            localDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), zone);
+            millis = now;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.support;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.Iterator;
+
+// createdDate 를 INSERT 에서 빼서 DB 컬럼 기본값(@ColumnDefault)으로 채우게 한다
+// 퍼시스터가 만들어지기 전에 매핑을 바꾸므로 INSERT SQL 이 엔티티마다 하나로 유지되고 JDBC 배치도 그대로 동작한다
+// 엔티티에 채워진 값은 DB 에 쓰이지 않는다 (정확한 값이 필요하면 다시 읽는다)
+public class DatabaseCreatedDateIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            Iterator<?> properties = entity.getPropertyClosureIterator();
+            while (properties.hasNext()) {
+                Property property = (Property) properties.next();
+                if("createdDate".equals(property.getName()) && hasDefault(property)){
+                    property.setInsertable(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private boolean hasDefault(Property property){
+        Iterator<?> columns = property.getColumnIterator();
+        return columns.hasNext() && ((Column) columns.next()).getDefaultValue() != null;
+    }
+}
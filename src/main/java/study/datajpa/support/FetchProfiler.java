@@ -0,0 +1,357 @@
+package study.datajpa.support;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// 리포지토리 메서드가 돌려준 엔티티에서 나중에 어떤 지연 로딩이 일어나는지 기록한다 (N+1 추적)
+// - record: 메서드별 지연 로딩 경로(team, team.members ...)를 세고 @EntityGraph 후보를 알려준다
+// - apply: 자주 터지는 경로는 다음 호출부터 결과를 돌려주기 전에 IN 쿼리 한 번으로 미리 채운다
+//   estimatedSavedQueries 는 미리 채운 대상이 전부 지연 로딩됐을 거라고 가정한 추정치다 (실제로 접근했는지는 세지 않는다)
+// 반환된 엔티티는 트랜잭션 안에서만 추적한다 (밖에서는 바로 준영속이라 지연 로딩 자체가 안 됨)
+@Component
+public class FetchProfiler implements LoadEventListener, InitializeCollectionEventListener {
+
+    private static final String RESOURCE_KEY = FetchProfiler.class.getName() + ".ATTRIBUTIONS";
+    private static final int MAX_DEPTH = 2; // member -> team -> members 까지
+
+    public enum Mode { OFF, RECORD, APPLY }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final Mode mode;
+    private final int minLazyLoads;
+    private final Map<String, MethodProfile> profiles = new ConcurrentHashMap<>();
+
+    public FetchProfiler(@Value("${datajpa.fetch-profile.mode:off}") String mode,
+                         @Value("${datajpa.fetch-profile.min-lazy-loads:2}") int minLazyLoads) {
+        // YAML 에 따옴표 없이 off 라고 쓰면 false 로 읽힌다
+        this.mode = "false".equals(mode) ? Mode.OFF : Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.minLazyLoads = minLazyLoads;
+    }
+
+    public boolean isEnabled(){
+        return mode != Mode.OFF;
+    }
+
+    // 리포지토리 메서드가 결과를 돌려주기 직전에 호출
+    public void afterQuery(String method, Object result){
+        MethodProfile profile = profiles.computeIfAbsent(method, key -> new MethodProfile());
+        profile.calls.increment();
+
+        Map<String, Attribution> attributions = currentAttributions();
+        if(attributions == null){
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Object> roots = roots(session, result);
+        if(roots.isEmpty()){
+            return;
+        }
+
+        if(mode == Mode.APPLY){
+            // 짧은 경로부터 채워야 team 을 채운 뒤 team.members 를 채울 수 있다
+            List<String> paths = profile.hotPaths(minLazyLoads);
+            paths.sort(Comparator.comparingInt(String::length));
+            for (String path : paths) {
+                int estimated = prefetch(session, roots, path.split("\\."));
+                if(estimated > 0){
+                    profile.prefetches.increment();
+                    profile.estimatedSavedQueries.add(estimated);
+                }
+            }
+        }
+
+        for (Object root : roots) {
+            register(session, root, new Attribution(method, ""), attributions, 0);
+        }
+    }
+
+    // 프록시 초기화 -> session.immediateLoad -> IMMEDIATE_LOAD
+    // 리스너를 앞에 붙여서, 이미 영속성 컨텍스트에 있어 쿼리가 안 나가는 경우는 세지 않는다
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        if(loadType != LoadEventListener.IMMEDIATE_LOAD){
+            return;
+        }
+        Map<String, Attribution> attributions = boundAttributions();
+        if(attributions == null){
+            return;
+        }
+        Attribution attribution = attributions.get(entityKey(event.getEntityClassName(), event.getEntityId()));
+        if(attribution == null){
+            return;
+        }
+        SessionImplementor session = event.getSession();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(event.getEntityClassName());
+        EntityKey key = session.generateEntityKey(event.getEntityId(), persister);
+        if(session.getPersistenceContext().getEntity(key) != null){
+            return;
+        }
+        record(attribution);
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        Map<String, Attribution> attributions = boundAttributions();
+        if(attributions == null){
+            return;
+        }
+        PersistentCollection collection = event.getCollection();
+        String role = collection.getRole();
+        Attribution attribution = attributions.get(collectionKey(role, collection.getKey()));
+        if(attribution == null){
+            // 반환할 때는 프록시였던 엔티티가 나중에 초기화된 뒤 그 컬렉션까지 읽은 경우
+            Attribution owner = attributions.get(entityKey(event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull()));
+            if(owner == null){
+                return;
+            }
+            attribution = owner.child(role.substring(role.lastIndexOf('.') + 1));
+        }
+        record(attribution);
+    }
+
+    public Map<String, Object> report(){
+        Map<String, Object> methods = new TreeMap<>();
+        profiles.forEach((method, profile) -> {
+            Map<String, Object> shape = new LinkedHashMap<>();
+            shape.put("calls", profile.calls.sum());
+            Map<String, Long> lazyLoads = new TreeMap<>();
+            profile.lazyLoads.forEach((path, count) -> lazyLoads.put(path, count.sum()));
+            shape.put("lazyLoads", lazyLoads);
+            shape.put("suggestedEntityGraph", profile.hotPaths(minLazyLoads));
+            shape.put("prefetches", profile.prefetches.sum());
+            shape.put("estimatedSavedQueries", profile.estimatedSavedQueries.sum());
+            methods.put(method, shape);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode.name().toLowerCase(Locale.ROOT));
+        result.put("estimatedSavedQueries", profiles.values().stream().mapToLong(profile -> profile.estimatedSavedQueries.sum()).sum());
+        result.put("methods", methods);
+        return result;
+    }
+
+    private void record(Attribution attribution){
+        MethodProfile profile = profiles.get(attribution.method);
+        if(profile != null && !attribution.path.isEmpty()){
+            profile.lazyLoads.computeIfAbsent(attribution.path, key -> new LongAdder()).increment();
+        }
+    }
+
+    // 반환된 엔티티와 그 연관관계에 "어느 메서드가 돌려준 어느 경로인지" 표시
+    private void register(SessionImplementor session, Object entity, Attribution attribution,
+                          Map<String, Attribution> attributions, int depth){
+        EntityPersister persister = session.getEntityPersister(null, entity);
+        Serializable id = persister.getIdentifier(entity, session);
+        attributions.put(entityKey(persister.getEntityName(), id), attribution);
+        if(depth >= MAX_DEPTH){
+            return;
+        }
+
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if(!types[i].isAssociationType()){
+                continue;
+            }
+            Object value = persister.getPropertyValue(entity, i);
+            if(value == null){
+                continue;
+            }
+            Attribution child = attribution.child(names[i]);
+            if(value instanceof HibernateProxy){
+                LazyInitializer initializer = ((HibernateProxy) value).getHibernateLazyInitializer();
+                if(initializer.isUninitialized()){
+                    attributions.put(entityKey(initializer.getEntityName(), initializer.getIdentifier()), child);
+                } else {
+                    register(session, initializer.getImplementation(), child, attributions, depth + 1);
+                }
+            } else if(value instanceof PersistentCollection){
+                if(!((PersistentCollection) value).wasInitialized()){
+                    attributions.put(collectionKey(persister.getEntityName() + "." + names[i], id), child);
+                }
+            } else if(types[i].isEntityType()){
+                register(session, value, child, attributions, depth + 1);
+            }
+        }
+    }
+
+    // path 끝에 있는 초기화 안 된 프록시/컬렉션을 쿼리 한 번으로 채운다
+    // 대상마다 지연 로딩 한 번씩 할 것을 한 번으로 줄였다고 보고 (대상 수 - 1) 을 돌려준다 (추정치)
+    private int prefetch(SessionImplementor session, List<Object> roots, String[] path){
+        List<Object> owners = roots;
+        for (int i = 0; i < path.length - 1; i++) {
+            List<Object> next = new ArrayList<>();
+            for (Object owner : owners) {
+                Object value = propertyValue(session, owner, path[i]);
+                // 중간 경로가 아직 프록시면 이번 호출에서는 건너뛴다 (짧은 경로가 먼저 채워짐)
+                if(value != null && !(value instanceof Collection) && Hibernate.isInitialized(value)){
+                    next.add(Hibernate.unproxy(value));
+                }
+            }
+            owners = next;
+        }
+
+        String property = path[path.length - 1];
+        Map<String, Set<Serializable>> proxyIds = new LinkedHashMap<>();
+        Map<String, List<Object>> collectionOwners = new LinkedHashMap<>();
+        for (Object owner : owners) {
+            Object value = propertyValue(session, owner, property);
+            if(value == null || Hibernate.isInitialized(value)){
+                continue;
+            }
+            if(value instanceof HibernateProxy){
+                LazyInitializer initializer = ((HibernateProxy) value).getHibernateLazyInitializer();
+                proxyIds.computeIfAbsent(initializer.getEntityName(), key -> new LinkedHashSet<>()).add(initializer.getIdentifier());
+            } else {
+                String ownerEntity = session.getEntityPersister(null, owner).getEntityName();
+                List<Object> list = collectionOwners.computeIfAbsent(ownerEntity, key -> new ArrayList<>());
+                if(!list.contains(owner)){
+                    list.add(owner);
+                }
+            }
+        }
+
+        int saved = 0;
+        for (Map.Entry<String, Set<Serializable>> entry : proxyIds.entrySet()) {
+            // 영속성 컨텍스트에 들어오면 프록시는 초기화할 때 쿼리 없이 이 엔티티를 쓴다
+            session.byMultipleIds(entry.getKey()).multiLoad(new ArrayList<>(entry.getValue()));
+            saved += entry.getValue().size() - 1;
+        }
+        for (Map.Entry<String, List<Object>> entry : collectionOwners.entrySet()) {
+            em.createQuery("select distinct o from " + entry.getKey() + " o left join fetch o." + property
+                    + " where o in :owners")
+                    .setParameter("owners", entry.getValue())
+                    .getResultList();
+            saved += entry.getValue().size() - 1;
+        }
+        return saved;
+    }
+
+    private Object propertyValue(SessionImplementor session, Object entity, String property){
+        EntityPersister persister = session.getEntityPersister(null, entity);
+        Integer index = persister.getEntityMetamodel().getPropertyIndexOrNull(property);
+        return index == null ? null : persister.getPropertyValue(entity, index);
+    }
+
+    // 엔티티만 추적 (DTO, 프로젝션, 숫자 같은 결과는 무시)
+    private List<Object> roots(SessionImplementor session, Object result){
+        Iterable<?> candidates;
+        if(result instanceof Iterable){
+            candidates = (Iterable<?>) result;
+        } else if(result instanceof Optional){
+            candidates = ((Optional<?>) result).map(Collections::singletonList).orElse(Collections.emptyList());
+        } else if(result != null){
+            candidates = Collections.singletonList(result);
+        } else {
+            return Collections.emptyList();
+        }
+
+        Map<String, EntityPersister> persisters = session.getFactory().getMetamodel().entityPersisters();
+        List<Object> roots = new ArrayList<>();
+        for (Object candidate : candidates) {
+            // Hibernate.getClass 는 프록시를 초기화하니까 초기화 여부부터 본다
+            if(candidate != null && Hibernate.isInitialized(candidate)
+                    && persisters.containsKey(Hibernate.getClass(candidate).getName())){
+                roots.add(Hibernate.unproxy(candidate));
+            }
+        }
+        return roots;
+    }
+
+    private Map<String, Attribution> currentAttributions(){
+        if(!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()){
+            return null;
+        }
+        Map<String, Attribution> attributions = boundAttributions();
+        if(attributions == null){
+            Map<String, Attribution> newAttributions = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newAttributions);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                // REQUIRES_NEW 는 다른 영속성 컨텍스트라서 섞이면 안 된다
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newAttributions);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+            });
+            attributions = newAttributions;
+        }
+        return attributions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Attribution> boundAttributions(){
+        return (Map<String, Attribution>) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+    }
+
+    private static String entityKey(String entityName, Serializable id){
+        return entityName + "#" + id;
+    }
+
+    private static String collectionKey(String role, Serializable ownerId){
+        return role + "#" + ownerId;
+    }
+
+    private static class Attribution {
+        private final String method;
+        private final String path;
+
+        Attribution(String method, String path) {
+            this.method = method;
+            this.path = path;
+        }
+
+        Attribution child(String property){
+            return new Attribution(method, path.isEmpty() ? property : path + "." + property);
+        }
+    }
+
+    private static class MethodProfile {
+        private final LongAdder calls = new LongAdder();
+        private final Map<String, LongAdder> lazyLoads = new ConcurrentHashMap<>();
+        private final LongAdder prefetches = new LongAdder();
+        private final LongAdder estimatedSavedQueries = new LongAdder();
+
+        List<String> hotPaths(int minLazyLoads){
+            return lazyLoads.entrySet().stream()
+                    .filter(entry -> entry.getValue().sum() >= minLazyLoads)
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+// 스프링 빈으로 등록된 하이버네이트 이벤트 리스너를 세션 팩토리에 붙인다
+// JPA 콜백(@PostUpdate 등)과 달리 변경 전 값(oldState)을 받을 수 있다
+@Component
+@RequiredArgsConstructor
+public class HibernateListenerRegistrar {
+
+    private final EntityManagerFactory emf;
+    private final ObjectProvider<PostInsertEventListener> postInsertListeners;
+    private final ObjectProvider<PostUpdateEventListener> postUpdateListeners;
+    private final ObjectProvider<PostDeleteEventListener> postDeleteListeners;
+    private final ObjectProvider<PostLoadEventListener> postLoadListeners;
+    private final ObjectProvider<LoadEventListener> loadListeners;
+    private final ObjectProvider<InitializeCollectionEventListener> initializeCollectionListeners;
+
+    @PostConstruct
+    public void register(){
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        postInsertListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_INSERT, listener));
+        postUpdateListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_UPDATE, listener));
+        postDeleteListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_DELETE, listener));
+        postLoadListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.POST_LOAD, listener));
+        // 로딩 전에 영속성 컨텍스트를 봐야 하는 리스너가 있어서 기본 리스너보다 앞에 붙인다
+        loadListeners.orderedStream().forEach(listener -> registry.prependListeners(EventType.LOAD, listener));
+        initializeCollectionListeners.orderedStream().forEach(listener -> registry.appendListeners(EventType.INIT_COLLECTION, listener));
+    }
+}
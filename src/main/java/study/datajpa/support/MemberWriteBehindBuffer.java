@@ -0,0 +1,285 @@
+package study.datajpa.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.outbox.OutboxEventListener;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// 자주 바뀌는 회원 속성(age, username)을 메모리에 모았다가 JDBC 배치로 한 번에 반영한다 (write-behind)
+//
+// 내구성:
+// - 버퍼에 있는 변경은 아직 DB에 없다. 정상 종료(@PreDestroy) 때는 반영하지만 프로세스가 죽으면 잃어버린다
+// - 같은 회원에 대한 변경은 합쳐진다. setAge/changeUsername 은 마지막 값이, addAge 는 합계가 남는다
+// - 영속성 컨텍스트와 엔티티 이벤트를 거치지 않는다. 반영 전에는 JPA 조회에 예전 값이 보이고,
+//   반영 후에도 이미 로딩된 엔티티는 갱신되지 않는다. 같은 회원을 JPA로도 수정하면 나중에 반영된 쪽이 이긴다
+// - 대신 반영할 때 같은 트랜잭션에서 outbox 이벤트를 남기고, 나이가 바뀐 회원의 팀만 team_summary 를 다시 계산한다
+//   응답 캐시 버전(MemberWriteVersion)도 올린다
+//
+// datajpa.write-behind.enabled=false 이면 호출할 때마다 바로 반영한다 (write-through)
+@Slf4j
+@Component
+public class MemberWriteBehindBuffer {
+
+    private static final int STRIPES = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TeamSummaryRefresher teamSummaryRefresher;
+    private final MemberWriteVersion writeVersion;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxPending;
+
+    // 회원 id 로 줄무늬(stripe)를 나눠서 서로 다른 회원을 바꾸는 스레드끼리는 경합하지 않게
+    private final List<ReentrantLock> locks = new ArrayList<>();
+    private final List<Map<Long, PendingUpdate>> buffers = new ArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    public MemberWriteBehindBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   TeamSummaryRefresher teamSummaryRefresher, MemberWriteVersion writeVersion,
+                                   ObjectMapper objectMapper,
+                                   @Value("${datajpa.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${datajpa.write-behind.max-pending:1000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.teamSummaryRefresher = teamSummaryRefresher;
+        this.writeVersion = writeVersion;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        for (int i = 0; i < STRIPES; i++) {
+            locks.add(new ReentrantLock());
+            buffers.add(new HashMap<>());
+        }
+    }
+
+    public void setAge(Long memberId, int age){
+        update(memberId, pendingUpdate -> pendingUpdate.setAge(age));
+    }
+
+    public void addAge(Long memberId, int delta){
+        update(memberId, pendingUpdate -> pendingUpdate.addAge(delta));
+    }
+
+    public void changeUsername(Long memberId, String username){
+        update(memberId, pendingUpdate -> pendingUpdate.changeUsername(username));
+    }
+
+    private void update(Long memberId, Consumer<PendingUpdate> change){
+        buffer(memberId, change);
+        requested.incrementAndGet();
+
+        if(!enabled){
+            flush(true);
+        } else if(pending.get() >= maxPending){
+            flush(false);
+        }
+    }
+
+    private void buffer(Long memberId, Consumer<PendingUpdate> change){
+        int stripe = (memberId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+        ReentrantLock lock = locks.get(stripe);
+        lock.lock();
+        try {
+            PendingUpdate pendingUpdate = buffers.get(stripe).get(memberId);
+            if(pendingUpdate == null){
+                pendingUpdate = new PendingUpdate();
+                buffers.get(stripe).put(memberId, pendingUpdate);
+                pending.incrementAndGet();
+            }
+            change.accept(pendingUpdate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.write-behind.flush-interval:200}")
+    public void flushPeriodically(){
+        flush(false);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        flush(true);
+    }
+
+    // wait=false 면 다른 스레드가 반영 중일 때 그냥 돌아간다 (그 스레드가 가져가거나 다음 주기에 반영)
+    public int flush(boolean wait){
+        if(wait){
+            flushLock.lock();
+        } else if(!flushLock.tryLock()){
+            return 0;
+        }
+        try {
+            Map<Long, PendingUpdate> drained = drain();
+            if(drained.isEmpty()){
+                return 0;
+            }
+            try {
+                transactionTemplate.execute(status -> {
+                    write(drained);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                requeue(drained);
+                throw e;
+            }
+            written.addAndGet(drained.size());
+            return drained.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Map<String, Object> metrics(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("pending", pending.get());
+        result.put("requestedUpdates", requested.get());
+        result.put("writtenRows", written.get());
+        return result;
+    }
+
+    private Map<Long, PendingUpdate> drain(){
+        Map<Long, PendingUpdate> drained = new TreeMap<>(); // member_id 순서로 갱신해서 데드락 방지
+        for (int i = 0; i < STRIPES; i++) {
+            Map<Long, PendingUpdate> buffer;
+            locks.get(i).lock();
+            try {
+                buffer = buffers.get(i);
+                buffers.set(i, new HashMap<>());
+            } finally {
+                locks.get(i).unlock();
+            }
+            drained.putAll(buffer);
+            pending.addAndGet(-buffer.size());
+        }
+        return drained;
+    }
+
+    // 반영에 실패하면 다시 버퍼에 넣는다, 그 사이에 들어온 변경이 더 최신이므로 그 위에 덮어쓰지 않는다
+    private void requeue(Map<Long, PendingUpdate> drained){
+        for (Map.Entry<Long, PendingUpdate> entry : drained.entrySet()) {
+            buffer(entry.getKey(), newer -> newer.rebase(entry.getValue()));
+        }
+    }
+
+    private void write(Map<Long, PendingUpdate> drained){
+        Timestamp now = Timestamp.valueOf(AuditClock.now());
+        List<Object[]> setAge = new ArrayList<>();
+        List<Object[]> addAge = new ArrayList<>();
+        List<Object[]> username = new ArrayList<>();
+        List<Object[]> outbox = new ArrayList<>();
+
+        for (Map.Entry<Long, PendingUpdate> entry : drained.entrySet()) {
+            Long memberId = entry.getKey();
+            PendingUpdate update = entry.getValue();
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("id", memberId);
+            if(update.age != null){
+                setAge.add(new Object[]{update.age, now, memberId});
+                payload.put("age", update.age);
+            } else if(update.ageDelta != 0){
+                addAge.add(new Object[]{update.ageDelta, now, memberId});
+                payload.put("ageDelta", update.ageDelta);
+            }
+            if(update.username != null){
+                username.add(new Object[]{update.username, now, memberId});
+                payload.put("username", update.username);
+            }
+            outbox.add(new Object[]{"Member", memberId, "UPDATED", toJson(payload), now});
+        }
+
+        batchUpdate("update member set age = ?, last_modified_date = ? where member_id = ? and deleted_date is null", setAge);
+        batchUpdate("update member set age = age + ?, last_modified_date = ? where member_id = ? and deleted_date is null", addAge);
+        batchUpdate("update member set username = ?, last_modified_date = ? where member_id = ? and deleted_date is null", username);
+        batchUpdate(OutboxEventListener.INSERT_SQL, outbox);
+        writeVersion.changed();
+        if(!setAge.isEmpty() || !addAge.isEmpty()){
+            teamSummaryRefresher.markDirty(teamIdsOf(drained));
+        }
+    }
+
+    // 나이가 바뀐 회원의 팀만 다시 계산하도록 (username 은 team_summary 에 없다)
+    private List<Long> teamIdsOf(Map<Long, PendingUpdate> drained){
+        List<Long> memberIds = new ArrayList<>();
+        drained.forEach((memberId, update) -> {
+            if(update.age != null || update.ageDelta != 0){
+                memberIds.add(memberId);
+            }
+        });
+        String in = memberIds.stream().map(id -> "?").collect(Collectors.joining(", ", "(", ")"));
+        return jdbcTemplate.queryForList("select distinct team_id from member where team_id is not null and member_id in " + in,
+                Long.class, memberIds.toArray());
+    }
+
+    private void batchUpdate(String sql, List<Object[]> args){
+        if(!args.isEmpty()){
+            jdbcTemplate.batchUpdate(sql, args);
+        }
+    }
+
+    private String toJson(Map<String, Object> payload){
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("outbox payload 변환 실패", e);
+        }
+    }
+
+    private static class PendingUpdate {
+        private Integer age;
+        private int ageDelta;
+        private String username;
+
+        void setAge(int age){
+            this.age = age;
+            this.ageDelta = 0;
+        }
+
+        void addAge(int delta){
+            if(age != null){
+                age += delta;
+            } else {
+                ageDelta += delta;
+            }
+        }
+
+        void changeUsername(String username){
+            this.username = username;
+        }
+
+        // older 를 먼저 적용한 것처럼 합친다
+        void rebase(PendingUpdate older){
+            if(age == null){
+                if(older.age != null){
+                    age = older.age + ageDelta;
+                    ageDelta = 0;
+                } else {
+                    ageDelta += older.ageDelta;
+                }
+            }
+            if(username == null){
+                username = older.username;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package study.datajpa.support;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberBulkOperationListener;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 회원 조회 응답(ETag)용 쓰기 카운터, 회원/팀이 바뀔 때마다 올라간다
+// 수정 시각과 달리 같은 밀리초의 쓰기, 늦게 커밋된 트랜잭션, DB 시각으로 찍는 벌크 연산도 놓치지 않는다
+// - 엔티티 이벤트(insert/update/delete), 벌크 연산(bulkAgePlus, deleteInBatch ...)은 여기서 직접 받는다
+// - JDBC 로 회원을 바꾸는 곳(MemberWriteBehindBuffer, DataGenerator)은 changed() 를 부른다
+// 바뀔 때 한 번, 트랜잭션이 끝난 뒤 한 번 더 올린다
+//   커밋 전에 읽은 예전 데이터가 중간 버전으로 캐시돼도 커밋 뒤의 버전과는 다르다
+// 프로세스 메모리에만 있으니 인스턴스가 여럿이거나 DB 를 직접 고치면 알 수 없다 (응답 캐시도 인스턴스마다 따로다)
+@Component
+public class MemberWriteVersion implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        MemberBulkOperationListener {
+
+    private static final String RESOURCE_KEY = MemberWriteVersion.class.getName() + ".PENDING";
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current(){
+        return version.get();
+    }
+
+    public void changed(){
+        version.incrementAndGet();
+        if(!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(RESOURCE_KEY)){
+            return;
+        }
+        // 트랜잭션당 한 번만 등록
+        TransactionSynchronizationManager.bindResource(RESOURCE_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(RESOURCE_KEY, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void afterBulkOperation(Method method) {
+        changed();
+    }
+
+    // 팀 이름도 회원 목록 응답에 들어간다
+    private void changed(Object entity){
+        if(entity instanceof Member || entity instanceof Team){
+            changed();
+        }
+    }
+}
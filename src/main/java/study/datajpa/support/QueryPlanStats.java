@@ -0,0 +1,53 @@
+package study.datajpa.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+
+// hibernate.generate_statistics 가 켜져 있어야 값이 쌓인다
+@Component
+public class QueryPlanStats {
+
+    private final Statistics statistics;
+
+    public QueryPlanStats(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, Object> report(){
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("planCacheHits", hits);
+        result.put("planCacheMisses", misses);
+        result.put("planCacheHitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            Map<String, Object> shape = new LinkedHashMap<>();
+            shape.put("query", query);
+            shape.put("executions", queryStatistics.getExecutionCount());
+            shape.put("avgTimeMs", queryStatistics.getExecutionAvgTime());
+            shape.put("planCacheHits", queryStatistics.getPlanCacheHitCount());
+            shape.put("planCacheMisses", queryStatistics.getPlanCacheMissCount());
+            // 처음 한 번 말고 또 miss 가 났다면 다시 컴파일된 것 (캐시에서 밀려났거나 캐시 크기를 넘는 쿼리 모양)
+            shape.put("recompiles", Math.max(0, queryStatistics.getPlanCacheMissCount() - 1));
+            shape.put("compileTimeMicros", queryStatistics.getPlanCompilationTotalMicroseconds());
+            queries.add(shape);
+        }
+        queries.sort(Comparator.comparing((Map<String, Object> shape) -> (Long) shape.get("recompiles")).reversed());
+        result.put("queries", queries);
+        return result;
+    }
+
+    public String[] executedQueries(){
+        return statistics.getQueries();
+    }
+}
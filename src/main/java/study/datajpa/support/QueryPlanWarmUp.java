@@ -0,0 +1,166 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+// 배포 직후 첫 요청이 쿼리 파싱 비용을 내지 않도록 시작 시점에 쿼리 플랜을 미리 만들어 둔다
+// 1. 리포지토리 @Query (JPQL)
+// 2. 이전 실행에서 실제로 실행된 쿼리 목록 (warm-up-file, 파생 쿼리 / 순수 JPA 리포지토리 쿼리 포함)
+// 플랜 캐시 키는 쿼리 문자열 그대로라서 공백 하나만 달라도 다른 플랜이 된다
+// -> 파일에는 줄바꿈만 이스케이프해서 한 줄에 하나씩, 읽을 때 원래 문자열로 되돌린다
+@Slf4j
+@Component
+public class QueryPlanWarmUp implements ApplicationRunner {
+
+    private final ListableBeanFactory beanFactory;
+    private final EntityManagerFactory emf;
+    private final QueryPlanStats queryPlanStats;
+    private final boolean enabled;
+    private final String warmUpFile;
+
+    public QueryPlanWarmUp(ListableBeanFactory beanFactory, EntityManagerFactory emf, QueryPlanStats queryPlanStats,
+                           @Value("${datajpa.query-plan.warm-up:true}") boolean enabled,
+                           @Value("${datajpa.query-plan.warm-up-file:}") String warmUpFile) {
+        this.beanFactory = beanFactory;
+        this.emf = emf;
+        this.queryPlanStats = queryPlanStats;
+        this.enabled = enabled;
+        this.warmUpFile = warmUpFile;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if(!enabled){
+            return;
+        }
+
+        Set<String> queries = new LinkedHashSet<>();
+        Repositories repositories = new Repositories(beanFactory);
+        for (Class<?> domainType : repositories) {
+            repositories.getRepositoryInformationFor(domainType)
+                    .ifPresent(information -> queries.addAll(annotatedQueries(information.getRepositoryInterface())));
+        }
+        queries.addAll(recordedQueries());
+
+        long start = System.currentTimeMillis();
+        int compiled = 0;
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (String query : queries) {
+                try {
+                    em.createQuery(query);
+                    compiled++;
+                } catch (IllegalArgumentException e) {
+                    // 네이티브 쿼리이거나 더 이상 유효하지 않은 쿼리
+                    log.debug("skip warm-up query: {}", query);
+                }
+            }
+        } finally {
+            em.close();
+        }
+        log.info("query plan warm-up: {}/{} queries in {} ms", compiled, queries.size(), System.currentTimeMillis() - start);
+    }
+
+    // 다음 기동 때 쓸 수 있도록 이번에 실행된 쿼리 목록을 남긴다
+    @PreDestroy
+    public void recordExecutedQueries(){
+        if(!StringUtils.hasText(warmUpFile)){
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        for (String query : queryPlanStats.executedQueries()) {
+            lines.add(escape(query));
+        }
+        try {
+            Path path = Paths.get(warmUpFile);
+            if(path.getParent() != null){
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("failed to record executed queries to {}", warmUpFile, e);
+        }
+    }
+
+    private List<String> annotatedQueries(Class<?> repositoryInterface){
+        List<String> result = new ArrayList<>();
+        for (Method method : repositoryInterface.getMethods()) {
+            Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+            if(query == null || query.nativeQuery()){
+                continue;
+            }
+            if(StringUtils.hasText(query.value())){
+                result.add(query.value());
+            }
+            if(StringUtils.hasText(query.countQuery())){
+                result.add(query.countQuery());
+            }
+        }
+        return result;
+    }
+
+    private List<String> recordedQueries(){
+        if(!StringUtils.hasText(warmUpFile) || !Files.exists(Paths.get(warmUpFile))){
+            return Collections.emptyList();
+        }
+        try {
+            List<String> queries = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(warmUpFile), StandardCharsets.UTF_8)) {
+                if(!line.isEmpty()){
+                    queries.add(unescape(line));
+                }
+            }
+            return queries;
+        } catch (IOException e) {
+            log.warn("failed to read warm-up queries from {}", warmUpFile, e);
+            return Collections.emptyList();
+        }
+    }
+
+    // \ -> \\, 줄바꿈 -> \n, \r
+    static String escape(String query){
+        StringBuilder sb = new StringBuilder(query.length());
+        for (char c : query.toCharArray()) {
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String unescape(String line){
+        StringBuilder sb = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(c != '\\' || i + 1 == line.length()){
+                sb.append(c);
+                continue;
+            }
+            char next = line.charAt(++i);
+            sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+        return sb.toString();
+    }
+}
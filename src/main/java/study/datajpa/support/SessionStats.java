@@ -0,0 +1,99 @@
+package study.datajpa.support;
+
+// 요청 하나 동안 열린 세션들의 하이버네이트 통계
+// OSIV 를 껐으니 요청 하나에 트랜잭션(세션)이 여러 개일 수 있어서 세션이 아니라 요청 단위로 모은다
+public class SessionStats {
+
+    private static final ThreadLocal<SessionStats> CURRENT = new ThreadLocal<>();
+
+    private final String request;
+    private int entitiesLoaded;
+    private int collectionsFetched;
+    private int flushes;
+    private int statements;
+    private int maxManagedEntities;
+    private long dirtyCheckNanos;
+    private boolean guardTripped;
+
+    private SessionStats(String request) {
+        this.request = request;
+    }
+
+    public static SessionStats begin(String request){
+        SessionStats stats = new SessionStats(request);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SessionStats end(){
+        SessionStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    // 요청 밖(스케줄러, 부팅 중 등)이면 null
+    public static SessionStats current(){
+        return CURRENT.get();
+    }
+
+    void entityLoaded(){
+        entitiesLoaded++;
+    }
+
+    void collectionFetched(){
+        collectionsFetched++;
+    }
+
+    void flushed(){
+        flushes++;
+    }
+
+    void statementExecuted(){
+        statements++;
+    }
+
+    void dirtyChecked(long nanos){
+        dirtyCheckNanos += nanos;
+    }
+
+    void managedEntities(int count){
+        maxManagedEntities = Math.max(maxManagedEntities, count);
+    }
+
+    // 가드는 요청당 한 번만 (로그가 엔티티 수만큼 찍히지 않게)
+    boolean tripGuard(){
+        if(guardTripped){
+            return false;
+        }
+        guardTripped = true;
+        return true;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public int getCollectionsFetched() {
+        return collectionsFetched;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getMaxManagedEntities() {
+        return maxManagedEntities;
+    }
+
+    public long getDirtyCheckMicros() {
+        return dirtyCheckNanos / 1_000;
+    }
+}
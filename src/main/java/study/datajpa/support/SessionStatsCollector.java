@@ -0,0 +1,147 @@
+package study.datajpa.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// 요청별 SessionStats 를 채우고, 요청이 끝나면 히스토그램으로 모은다 (/stats/session)
+// 영속성 컨텍스트가 관리하는 엔티티가 max-managed-entities 를 넘으면 로그를 남기거나(log) 예외로 끊는다(abort)
+@Slf4j
+@Component
+public class SessionStatsCollector implements PostLoadEventListener, PostInsertEventListener, InitializeCollectionEventListener {
+
+    private static final long[] BOUNDS = {0, 1, 5, 10, 50, 100, 500, 1_000, 5_000, 10_000};
+
+    private final int maxManagedEntities;
+    private final boolean abort;
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final LongAdder guardTrips = new LongAdder();
+
+    public SessionStatsCollector(@Value("${datajpa.session-stats.max-managed-entities:0}") int maxManagedEntities,
+                                 @Value("${datajpa.session-stats.guard:log}") String guard) {
+        this.maxManagedEntities = maxManagedEntities;
+        this.abort = "abort".equals(guard);
+        for (String name : new String[]{"entitiesLoaded", "collectionsFetched", "flushes", "dirtyCheckMicros", "statements", "maxManagedEntities"}) {
+            histograms.put(name, new Histogram());
+        }
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            stats.entityLoaded();
+            checkManaged(stats, event.getSession());
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            checkManaged(stats, event.getSession());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // 지연 로딩으로 초기화된 컬렉션 (fetch 조인으로 같이 온 컬렉션은 entitiesLoaded 쪽에 잡힌다)
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            stats.collectionFetched();
+        }
+    }
+
+    private void checkManaged(SessionStats stats, SessionImplementor session){
+        int managed = session.getPersistenceContext().getNumberOfManagedEntities();
+        stats.managedEntities(managed);
+        if(maxManagedEntities <= 0 || managed <= maxManagedEntities || !stats.tripGuard()){
+            return;
+        }
+        guardTrips.increment();
+        if(abort){
+            throw new IllegalStateException("영속성 컨텍스트 엔티티 수 초과: " + managed + " > " + maxManagedEntities + " (" + stats.getRequest() + ")");
+        }
+        log.warn("too many managed entities: {} > {} ({})", managed, maxManagedEntities, stats.getRequest());
+    }
+
+    public void afterRequest(SessionStats stats){
+        if(stats == null){
+            return;
+        }
+        histograms.get("entitiesLoaded").record(stats.getEntitiesLoaded());
+        histograms.get("collectionsFetched").record(stats.getCollectionsFetched());
+        histograms.get("flushes").record(stats.getFlushes());
+        histograms.get("dirtyCheckMicros").record(stats.getDirtyCheckMicros());
+        histograms.get("statements").record(stats.getStatements());
+        histograms.get("maxManagedEntities").record(stats.getMaxManagedEntities());
+    }
+
+    public Map<String, Object> report(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxManagedEntities", maxManagedEntities);
+        result.put("guard", abort ? "abort" : "log");
+        result.put("guardTrips", guardTrips.sum());
+        histograms.forEach((name, histogram) -> result.put(name, histogram.report()));
+        return result;
+    }
+
+    // 요청당 값의 분포. 버킷 경계는 BOUNDS (이하), 마지막 버킷은 그보다 큰 값
+    private static class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long value){
+            int i = 0;
+            while(i < BOUNDS.length && value > BOUNDS[i]){
+                i++;
+            }
+            buckets[i].increment();
+            count.increment();
+            sum.add(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        Map<String, Object> report(){
+            long requests = count.sum();
+            Map<String, Long> distribution = new LinkedHashMap<>();
+            for (int i = 0; i < BOUNDS.length; i++) {
+                distribution.put("<=" + BOUNDS[i], buckets[i].sum());
+            }
+            distribution.put(">" + BOUNDS[BOUNDS.length - 1], buckets[BOUNDS.length].sum());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", requests);
+            result.put("mean", requests == 0 ? 0.0 : (double) sum.sum() / requests);
+            result.put("max", max.get());
+            result.put("buckets", distribution);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.support;
+
+import org.hibernate.BaseSessionEventListener;
+
+// hibernate.session.events.auto 로 세션마다 새로 만들어진다 (스프링 빈 아님)
+// JDBC 실행, flush, 더티 체크 시간을 현재 요청의 SessionStats 에 더한다
+public class SessionStatsListener extends BaseSessionEventListener {
+
+    private long dirtyCheckStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            stats.statementExecuted();
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            stats.statementExecuted();
+        }
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            stats.flushed();
+            stats.managedEntities(numberOfEntities);
+        }
+    }
+
+    @Override
+    public void dirtyCalculationStart() {
+        dirtyCheckStart = System.nanoTime();
+    }
+
+    @Override
+    public void dirtyCalculationEnd(boolean dirty) {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            stats.dirtyChecked(System.nanoTime() - dirtyCheckStart);
+        }
+    }
+}
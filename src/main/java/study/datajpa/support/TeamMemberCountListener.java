@@ -0,0 +1,101 @@
+package study.datajpa.support;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Team.memberCount 를 DB에서 원자적으로 증감시킨다 (update ... set member_count = member_count + ?)
+// 엔티티의 값을 덮어쓰는 게 아니라서 동시에 여러 트랜잭션이 같은 팀을 바꿔도 갱신 손실이 없다
+@Component
+public class TeamMemberCountListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String RESOURCE_KEY = TeamMemberCountListener.class.getName() + ".DELTAS";
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if(event.getEntity() instanceof Member){
+            add(event.getSession(), teamId(event.getPersister(), event.getState()), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if(!(event.getEntity() instanceof Member) || event.getOldState() == null){
+            return;
+        }
+        Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+        Long newTeamId = teamId(event.getPersister(), event.getState());
+        if(!Objects.equals(oldTeamId, newTeamId)){
+            add(event.getSession(), oldTeamId, -1);
+            add(event.getSession(), newTeamId, 1);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if(event.getEntity() instanceof Member){
+            add(event.getSession(), teamId(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void add(EventSource session, Long teamId, int delta){
+        if(teamId == null){
+            return;
+        }
+        TransactionScopedWork.obtain(session, RESOURCE_KEY, MemberCountDeltas::new).add(teamId, delta);
+    }
+
+    private Long teamId(EntityPersister persister, Object[] state){
+        int index = Arrays.asList(persister.getPropertyNames()).indexOf("team");
+        Team team = (Team) state[index];
+        return team == null ? null : team.getId(); // 프록시여도 id 조회는 초기화하지 않는다
+    }
+
+    private static class MemberCountDeltas implements BeforeTransactionCompletionProcess {
+
+        // team_id 순서로 갱신해서 트랜잭션끼리 데드락이 나지 않게
+        private final Map<Long, Integer> deltas = new TreeMap<>();
+
+        void add(Long teamId, int delta){
+            deltas.merge(teamId, delta, Integer::sum);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            deltas.values().removeIf(delta -> delta == 0);
+            if(deltas.isEmpty()){
+                return;
+            }
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "update team set member_count = member_count + ?, updated_date = ? where team_id = ?")) {
+                    // 회원 수가 바뀐 팀도 변경 조회(findTeamsChangedSince)에 나오도록 수정 시각을 같이 올린다
+                    Timestamp now = Timestamp.valueOf(AuditClock.now());
+                    for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                        ps.setInt(1, entry.getValue());
+                        ps.setTimestamp(2, now);
+                        ps.setLong(3, entry.getKey());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.MemberBulkOperationListener;
+import study.datajpa.repository.TeamRepository;
+
+import java.lang.reflect.Method;
+
+// deleteInBatch 같은 벌크 연산이나 직접 SQL로 바뀐 건 리스너가 모르니까 주기적으로 실제 count 와 맞춰준다
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountReconciler implements MemberBulkOperationListener {
+
+    private final TeamRepository teamRepository;
+
+    // 트랜잭션을 여기서 열지 않는다 -> 샤딩이 켜져 있으면 샤드마다 각자 트랜잭션으로 고친다
+    @Scheduled(initialDelayString = "${datajpa.team.member-count.reconcile-delay:600000}",
+            fixedDelayString = "${datajpa.team.member-count.reconcile-delay:600000}")
+    public int reconcile(){
+        int repaired = teamRepository.reconcileMemberCount();
+        if(repaired > 0){
+            log.info("team member count repaired: {} teams", repaired);
+        }
+        return repaired;
+    }
+
+    // deleteInBatch, deleteAllInBatch 는 엔티티 이벤트 없이 회원을 지운다
+    // 트랜잭션 안이면 참여해서 그 트랜잭션의 샤드만, 밖이면 reconcileMemberCount 가 직접 연다
+    @Override
+    public void afterBulkOperation(Method method) {
+        if(method.getName().endsWith("InBatch")){
+            reconcile();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package study.datajpa.support;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberBulkOperationListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// team_summary 를 변경이 있었던 팀만 골라서 다시 계산한다
+// flush 중에는 어떤 팀이 바뀌었는지만 모으고, 커밋 직전에 그 팀들만 한 번의 MERGE 로 갱신
+// (JDBC 배치가 켜져 있어도 마지막 flush 이후에 실행되므로 이번 트랜잭션의 변경이 모두 반영된 상태에서 계산된다)
+@Component
+public class TeamSummaryRefresher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        MemberBulkOperationListener {
+
+    private static final String RESOURCE_KEY = TeamSummaryRefresher.class.getName() + ".DIRTY_TEAMS";
+
+    private static final String MERGE_SQL =
+            "merge into team_summary (team_id, team_name, member_count, age_sum, min_age, max_age," +
+            " age_under_20, age_20s, age_30s, age_40s, age_50_and_over) key (team_id)" +
+            " select t.team_id, t.name, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)," +
+            " sum(case when m.age < 20 then 1 else 0 end)," +
+            " sum(case when m.age >= 20 and m.age < 30 then 1 else 0 end)," +
+            " sum(case when m.age >= 30 and m.age < 40 then 1 else 0 end)," +
+            " sum(case when m.age >= 40 and m.age < 50 then 1 else 0 end)," +
+            " sum(case when m.age >= 50 then 1 else 0 end)" +
+            " from team t left join member m on m.team_id = t.team_id and m.deleted_date is null";
+    private static final String MERGE_GROUP_BY = " group by t.team_id, t.name";
+    private static final String DELETE_SQL = "delete from team_summary where team_id not in (select team_id from team)";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if(event.getEntity() instanceof Member){
+            markDirty(event.getSession(), teamId(event.getPersister(), event.getState()));
+        } else if(event.getEntity() instanceof Team){
+            markDirty(event.getSession(), (Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if(event.getEntity() instanceof Member){
+            Object[] oldState = event.getOldState();
+            Long newTeamId = teamId(event.getPersister(), event.getState());
+            if(oldState == null){
+                markDirty(event.getSession(), newTeamId);
+                return;
+            }
+            Long oldTeamId = teamId(event.getPersister(), oldState);
+            int age = index(event.getPersister(), "age");
+            if(!Objects.equals(oldTeamId, newTeamId) || !Objects.equals(oldState[age], event.getState()[age])){
+                markDirty(event.getSession(), oldTeamId);
+                markDirty(event.getSession(), newTeamId);
+            }
+        } else if(event.getEntity() instanceof Team){
+            markDirty(event.getSession(), (Long) event.getId()); // 팀 이름 변경
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if(event.getEntity() instanceof Member){
+            markDirty(event.getSession(), teamId(event.getPersister(), event.getDeletedState()));
+        } else if(event.getEntity() instanceof Team){
+            markDirty(event.getSession(), (Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // bulkAgePlus 같은 벌크 연산은 어떤 팀이 바뀌었는지 모르니 전체를 다시 계산
+    @Override
+    @Transactional
+    public void afterBulkOperation(Method method) {
+        refreshAll();
+    }
+
+    // 엔티티 이벤트 없이 SQL로 회원을 바꾼 곳에서 호출 (커밋 직전에 전체 재계산)
+    @Transactional
+    public void refreshAll(){
+        EventSource session = em.unwrap(EventSource.class);
+        TransactionScopedWork.obtain(session, RESOURCE_KEY, DirtyTeams::new).markAll();
+    }
+
+    // 엔티티 이벤트 없이 SQL로 회원을 바꿨지만 어느 팀인지 아는 곳에서 호출 (커밋 직전에 그 팀들만 재계산)
+    @Transactional
+    public void markDirty(Collection<Long> teamIds){
+        EventSource session = em.unwrap(EventSource.class);
+        teamIds.forEach(teamId -> markDirty(session, teamId));
+    }
+
+    private void markDirty(EventSource session, Long teamId){
+        if(teamId != null){
+            TransactionScopedWork.obtain(session, RESOURCE_KEY, DirtyTeams::new).mark(teamId);
+        }
+    }
+
+    private Long teamId(EntityPersister persister, Object[] state){
+        Team team = (Team) state[index(persister, "team")];
+        return team == null ? null : team.getId();
+    }
+
+    private int index(EntityPersister persister, String property){
+        return Arrays.asList(persister.getPropertyNames()).indexOf(property);
+    }
+
+    private static class DirtyTeams implements BeforeTransactionCompletionProcess {
+
+        private final Set<Long> teamIds = new TreeSet<>();
+        private boolean all;
+
+        void mark(Long teamId){
+            teamIds.add(teamId);
+        }
+
+        void markAll(){
+            all = true;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if(!all && teamIds.isEmpty()){
+                return;
+            }
+            session.doWork(connection -> {
+                if(all){
+                    try (PreparedStatement ps = connection.prepareStatement(MERGE_SQL + MERGE_GROUP_BY)) {
+                        ps.executeUpdate();
+                    }
+                    try (PreparedStatement ps = connection.prepareStatement(DELETE_SQL)) {
+                        ps.executeUpdate();
+                    }
+                    return;
+                }
+
+                String in = teamIds.stream().map(id -> "?").collect(Collectors.joining(", ", " (", ")"));
+                try (PreparedStatement ps = connection.prepareStatement(MERGE_SQL + " where t.team_id in" + in + MERGE_GROUP_BY)) {
+                    bind(ps);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = connection.prepareStatement(DELETE_SQL + " and team_id in" + in)) {
+                    bind(ps);
+                    ps.executeUpdate();
+                }
+            });
+        }
+
+        private void bind(PreparedStatement ps) throws SQLException {
+            int index = 1;
+            for (Long teamId : teamIds) {
+                ps.setLong(index++, teamId);
+            }
+        }
+    }
+}
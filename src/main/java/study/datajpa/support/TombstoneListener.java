@@ -0,0 +1,63 @@
+package study.datajpa.support;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Team;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 팀이 삭제되면 같은 트랜잭션에서 tombstone 에 남긴다 (TeamRepository.findTeamsChangedSince)
+@Component
+public class TombstoneListener implements PostDeleteEventListener {
+
+    private static final String RESOURCE_KEY = TombstoneListener.class.getName() + ".PENDING";
+    private static final String INSERT_SQL = "insert into tombstone (entity_type, entity_id, deleted_date) values (?, ?, ?)";
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if(event.getEntity() instanceof Team){
+            TransactionScopedWork.obtain(event.getSession(), RESOURCE_KEY, PendingTombstones::new)
+                    .add((Long) event.getId(), AuditClock.now());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static class PendingTombstones implements BeforeTransactionCompletionProcess {
+
+        private final Map<Long, LocalDateTime> deletedTeams = new LinkedHashMap<>();
+
+        void add(Long teamId, LocalDateTime deletedDate){
+            deletedTeams.put(teamId, deletedDate);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if(deletedTeams.isEmpty()){
+                return;
+            }
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                    for (Map.Entry<Long, LocalDateTime> entry : deletedTeams.entrySet()) {
+                        ps.setString(1, "Team");
+                        ps.setLong(2, entry.getKey());
+                        ps.setTimestamp(3, Timestamp.valueOf(entry.getValue()));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+        }
+    }
+}
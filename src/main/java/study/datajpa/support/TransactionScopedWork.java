@@ -0,0 +1,50 @@
+package study.datajpa.support;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+// flush 중에 모은 변경 내용을 트랜잭션당 한 번, 커밋 직전(마지막 flush 이후)에 같은 커넥션으로 반영하기 위한 도우미
+// 롤백되면 BeforeTransactionCompletionProcess 는 실행되지 않으므로 모은 내용도 같이 버려진다
+public final class TransactionScopedWork {
+
+    private TransactionScopedWork() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends BeforeTransactionCompletionProcess> T obtain(EventSource session, Object key, Supplier<T> factory){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            T work = factory.get();
+            session.getActionQueue().registerProcess(work);
+            return work;
+        }
+
+        T work = (T) TransactionSynchronizationManager.getResource(key);
+        if(work == null){
+            T newWork = factory.get();
+            session.getActionQueue().registerProcess(newWork);
+            TransactionSynchronizationManager.bindResource(key, newWork);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(key, newWork);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                }
+            });
+            work = newWork;
+        }
+        return work;
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// @PathVariable 엔티티 파라미터를 도메인 클래스 컨버터(매번 findById) 대신 EntityLookupArgumentResolver 로 찾는다
+// 엔드포인트마다 필요한 만큼만 조회하도록 mode 를 고른다
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EntityLookup {
+
+    Mode value() default Mode.SNAPSHOT;
+
+    // SNAPSHOT 을 재사용하는 최대 시간(ms)
+    long ttl() default 60_000;
+
+    enum Mode {
+        // getReference, DB 를 조회하지 않는다. 식별자만 쓰거나 다른 엔티티에 연관관계로 걸 때
+        REFERENCE,
+        // 읽기 전용으로 로딩해서 캐시해둔 detached 엔티티, 기본 필드만 읽을 때 (지연 로딩 연관관계는 쓸 수 없음)
+        SNAPSHOT,
+        // 도메인 클래스 컨버터와 같이 매번 조회
+        LOAD
+    }
+}
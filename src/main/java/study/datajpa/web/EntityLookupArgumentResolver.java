@@ -0,0 +1,117 @@
+package study.datajpa.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// @EntityLookup 이 붙은 @PathVariable 엔티티 파라미터를 해석한다
+// 도메인 클래스 컨버터보다 먼저 동작하도록 EntityLookupRegistrar 가 리졸버 목록 맨 앞에 넣는다
+@Component
+@RequiredArgsConstructor
+public class EntityLookupArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final EntityManagerFactory emf;
+    private final EntitySnapshotCache snapshotCache;
+
+    private final AtomicLong references = new AtomicLong();
+    private final AtomicLong snapshotHits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(EntityLookup.class)
+                && parameter.hasParameterAnnotation(PathVariable.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Class<?> type = parameter.getParameterType();
+        Object id = id(type, pathValue(parameter, webRequest));
+        if(id == null){
+            return null;
+        }
+
+        EntityLookup lookup = parameter.getParameterAnnotation(EntityLookup.class);
+        switch (lookup.value()) {
+            case REFERENCE:
+                references.incrementAndGet();
+                return reference(type, id);
+            case SNAPSHOT:
+                Object cached = snapshotCache.get(type, id, lookup.ttl());
+                if(cached != null){
+                    snapshotHits.incrementAndGet();
+                    return cached;
+                }
+                loads.incrementAndGet();
+                return snapshotCache.load(type, id);
+            default:
+                loads.incrementAndGet();
+                return load(type, id);
+        }
+    }
+
+    public Map<String, Object> metrics(){
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("avoidedDbHits", references.get() + snapshotHits.get());
+        result.put("references", references.get());
+        result.put("snapshotHits", snapshotHits.get());
+        result.put("dbLoads", loads.get());
+        return result;
+    }
+
+    private String pathValue(MethodParameter parameter, NativeWebRequest webRequest){
+        PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+        String name = StringUtils.hasText(pathVariable.value()) ? pathVariable.value() : pathVariable.name();
+        if(!StringUtils.hasText(name)){
+            name = parameter.getParameterName();
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) webRequest.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return variables == null ? null : variables.get(name);
+    }
+
+    private Object id(Class<?> type, String value){
+        if(!StringUtils.hasText(value)){
+            return null;
+        }
+        Class<?> idType = emf.getMetamodel().entity(type).getIdType().getJavaType();
+        return DefaultConversionService.getSharedInstance().convert(value, idType);
+    }
+
+    // 프록시는 요청 처리 중 식별자만 꺼내 쓸 수 있다 (다른 필드에 접근하면 LazyInitializationException)
+    private Object reference(Class<?> type, Object id){
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.getReference(type, id);
+        } finally {
+            em.close();
+        }
+    }
+
+    private Object load(Class<?> type, Object id){
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(type, id);
+        } finally {
+            em.close();
+        }
+    }
+}
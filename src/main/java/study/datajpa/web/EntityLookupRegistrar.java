@@ -0,0 +1,28 @@
+package study.datajpa.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+// WebMvcConfigurer 로 추가한 리졸버는 기본 리졸버(@PathVariable 포함) 뒤에 붙어서 호출되지 않는다
+// 그래서 어댑터가 초기화된 뒤 맨 앞에 끼워 넣는다
+@Component
+@RequiredArgsConstructor
+public class EntityLookupRegistrar {
+
+    private final RequestMappingHandlerAdapter handlerAdapter;
+    private final EntityLookupArgumentResolver entityLookupArgumentResolver;
+
+    @PostConstruct
+    public void register(){
+        List<HandlerMethodArgumentResolver> resolvers = new ArrayList<>();
+        resolvers.add(entityLookupArgumentResolver);
+        resolvers.addAll(handlerAdapter.getArgumentResolvers());
+        handlerAdapter.setArgumentResolvers(resolvers);
+    }
+}
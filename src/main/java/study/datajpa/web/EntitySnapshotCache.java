@@ -0,0 +1,160 @@
+package study.datajpa.web;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberBulkOperationListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// id -> 읽기 전용 엔티티 스냅샷 캐시 (EntityLookup.Mode.SNAPSHOT)
+// 엔티티가 수정/삭제되거나 Member 벌크 연산이 실행되면 지운다
+// flush 시점에 지우고, 커밋 전에 다른 요청이 이전 값을 다시 캐시했을 수 있으니 커밋 뒤에 한 번 더 지운다
+@Component
+public class EntitySnapshotCache implements PostUpdateEventListener, PostDeleteEventListener, MemberBulkOperationListener {
+
+    private static final String RESOURCE_KEY = EntitySnapshotCache.class.getName() + ".EVICTED";
+
+    private final EntityManagerFactory emf;
+    private final Map<Key, Snapshot> cache;
+
+    public EntitySnapshotCache(EntityManagerFactory emf,
+                               @Value("${datajpa.entity-lookup.max-entries:1024}") int maxEntries) {
+        this.emf = emf;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Key, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Snapshot> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    // 없거나 ttl 이 지났으면 null -> load 로 다시 읽는다
+    <T> T get(Class<T> type, Object id, long ttl){
+        Snapshot snapshot = cache.get(new Key(type, id));
+        if(snapshot != null && System.currentTimeMillis() - snapshot.loadedAt < ttl){
+            return type.cast(snapshot.entity);
+        }
+        return null;
+    }
+
+    <T> T load(Class<T> type, Object id){
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true); // 스냅샷 원본을 남기지 않는다
+            T entity = em.find(type, id);
+            if(entity != null){
+                cache.put(new Key(type, id), new Snapshot(entity, System.currentTimeMillis()));
+            }
+            return entity;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        evict(new Key(event.getPersister().getMappedClass(), event.getId()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evict(new Key(event.getPersister().getMappedClass(), event.getId()));
+    }
+
+    @Override
+    public void afterBulkOperation(Method method) {
+        evictMembers();
+        evicted().ifPresent(evicted -> evicted.allMembers = true);
+    }
+
+    private void evict(Key key){
+        cache.remove(key);
+        evicted().ifPresent(evicted -> evicted.keys.add(key));
+    }
+
+    private void evictMembers(){
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.type == Member.class);
+        }
+    }
+
+    // 트랜잭션마다 지운 키를 모아서 커밋 뒤에 다시 지운다 (트랜잭션 밖이면 이미 커밋된 변경)
+    private Optional<Evicted> evicted(){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            return Optional.empty();
+        }
+        Evicted evicted = (Evicted) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if(evicted == null){
+            Evicted newEvicted = new Evicted();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newEvicted);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newEvicted);
+                }
+
+                @Override
+                public void afterCommit() {
+                    newEvicted.keys.forEach(cache::remove);
+                    if(newEvicted.allMembers){
+                        evictMembers();
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+            });
+            evicted = newEvicted;
+        }
+        return Optional.of(evicted);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final Class<?> type;
+        private final Object id;
+    }
+
+    private static class Evicted {
+        private final Set<Key> keys = new HashSet<>();
+        private boolean allMembers;
+    }
+
+    @RequiredArgsConstructor
+    private static class Snapshot {
+        private final Object entity;
+        private final long loadedAt;
+    }
+}
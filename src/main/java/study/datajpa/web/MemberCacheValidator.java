@@ -0,0 +1,25 @@
+package study.datajpa.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.datajpa.support.MemberWriteVersion;
+
+// 쓰기 카운터(MemberWriteVersion)로 ETag 를 만든다, 쿼리를 날리지 않는다
+// 수정 시각(밀리초)은 같은 시각의 쓰기, 늦은 커밋, 벌크 연산을 놓쳐서 쓰지 않는다 -> Last-Modified 도 보내지 않는다
+// 회원/팀 하나만 바뀌어도 모든 회원의 ETag 가 바뀐다 (정확도를 위해 적중률을 포기)
+@Component
+@RequiredArgsConstructor
+public class MemberCacheValidator {
+
+    private final MemberWriteVersion writeVersion;
+
+    // 회원 한 명
+    public String forMember(Long id){
+        return "\"m" + id + "-" + writeVersion.current() + "\"";
+    }
+
+    // 목록
+    public String forMemberList(){
+        return "\"ml" + writeVersion.current() + "\"";
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 회원 조회 API 에 조건부 GET 적용
+// - /members/{id}, /members2/{id}: 쓰기 버전이 같으면 엔티티를 로딩하지 않고 304
+// - /members, /memberDtos: 쓰기 버전이 같으면 304, 아니면 직렬화해둔 응답을 재사용
+//   쓰기가 일어나면 버전이 바뀌므로 캐시는 따로 지우지 않아도 다음 요청에서 교체된다
+//   버전은 메모리의 카운터라 304/캐시 적중이면 쿼리가 하나도 나가지 않는다 (MemberCacheValidator)
+@Component
+public class MemberConditionalGetFilter extends OncePerRequestFilter {
+
+    private static final Pattern MEMBER_PATH = Pattern.compile("^/members2?/(\\d+)$");
+    private static final Pattern LIST_PATH = Pattern.compile("^/(members|memberDtos)$");
+
+    private final MemberCacheValidator validator;
+    private final Map<String, CachedResponse> cache;
+
+    public MemberConditionalGetFilter(MemberCacheValidator validator,
+                                      @Value("${datajpa.response-cache.max-entries:256}") int maxEntries) {
+        this.validator = validator;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+        Matcher member = MEMBER_PATH.matcher(path);
+        if(member.matches()){
+            if(webRequest.checkNotModified(validator.forMember(Long.valueOf(member.group(1))))){
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if(!LIST_PATH.matcher(path).matches()){
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String etag = validator.forMemberList();
+        if(webRequest.checkNotModified(etag)){
+            return;
+        }
+
+        String key = request.getQueryString() == null ? path : path + "?" + request.getQueryString();
+        CachedResponse cached = cache.get(key);
+        if(cached != null && cached.etag.equals(etag)){
+            response.setContentType(cached.contentType);
+            response.setContentLength(cached.body.length);
+            response.getOutputStream().write(cached.body);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if(wrapper.getStatus() == HttpServletResponse.SC_OK){
+            cache.put(key, new CachedResponse(etag, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static class CachedResponse {
+        private final String etag;
+        private final String contentType;
+        private final byte[] body;
+
+        CachedResponse(String etag, String contentType, byte[] body) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.MemberSortColumns;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// 회원 페이지를 엔티티 없이 쿼리 결과에서 바로 JSON 으로 쓴다
+// JDBC 로 한 줄씩 읽으면서 바로 출력 스트림에 쓰므로 영속성 컨텍스트, 지연 로딩 프록시, 목록 버퍼가 없다
+//
+// {"content":[{"id":"899979441256529920","username":"user1","age":1,"teamName":null},...],
+//  "page":{"number":0,"size":10,"numberOfElements":10,"totalElements":100,"totalPages":10}}
+@Component
+@RequiredArgsConstructor
+public class MemberJsonStreamer {
+
+    private static final String SELECT = "select m.member_id, m.username, m.age, t.name" +
+            " from member m left join team t on m.team_id = t.team_id where m.deleted_date is null";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void writePage(Pageable pageable, OutputStream out) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("content");
+
+            int[] rows = {0};
+            jdbcTemplate.query(SELECT + MemberSortColumns.orderBy(pageable.getSort()) + " limit ? offset ?", rs -> {
+                try {
+                    gen.writeStartObject();
+                    gen.writeStringField("id", Long.toString(rs.getLong(1))); // MemberDto 처럼 문자열로
+                    gen.writeStringField("username", rs.getString(2));
+                    gen.writeNumberField("age", rs.getInt(3));
+                    gen.writeStringField("teamName", rs.getString(4));
+                    gen.writeEndObject();
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, pageable.getPageSize(), pageable.getOffset());
+            gen.writeEndArray();
+
+            long total = total(pageable, rows[0]);
+            gen.writeObjectFieldStart("page");
+            gen.writeNumberField("number", pageable.getPageNumber());
+            gen.writeNumberField("size", pageable.getPageSize());
+            gen.writeNumberField("numberOfElements", rows[0]);
+            gen.writeNumberField("totalElements", total);
+            gen.writeNumberField("totalPages", (total + pageable.getPageSize() - 1) / pageable.getPageSize());
+            gen.writeEndObject();
+
+            gen.writeEndObject();
+        }
+    }
+
+    // PageableExecutionUtils 와 같은 규칙, 결과로 전체 개수를 알 수 있으면 count 쿼리 생략
+    private long total(Pageable pageable, int rows){
+        if(pageable.getOffset() == 0 && rows < pageable.getPageSize()){
+            return rows;
+        }
+        if(rows != 0 && rows < pageable.getPageSize()){
+            return pageable.getOffset() + rows;
+        }
+        return jdbcTemplate.queryForObject("select count(*) from member where deleted_date is null", Long.class);
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import study.datajpa.support.SessionStats;
+import study.datajpa.support.SessionStatsCollector;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// 요청 동안 SessionStats 를 스레드에 묶어두고, 끝나면 히스토그램에 넣는다
+@Component
+@RequiredArgsConstructor
+public class SessionStatsFilter extends OncePerRequestFilter {
+
+    private final SessionStatsCollector collector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SessionStats.begin(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            collector.afterRequest(SessionStats.end());
+        }
+    }
+}
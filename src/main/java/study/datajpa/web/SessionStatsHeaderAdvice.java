@@ -0,0 +1,44 @@
+package study.datajpa.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import study.datajpa.support.SessionStats;
+
+// 개발용: 응답 본문을 쓰기 직전에 이번 요청의 하이버네이트 통계를 X-Hibernate-* 헤더로 붙인다
+// OSIV 가 꺼져 있어서 이 시점에는 트랜잭션이 다 끝났다 (직렬화 중 지연 로딩 없음)
+@ControllerAdvice
+public class SessionStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    private final boolean enabled;
+
+    public SessionStatsHeaderAdvice(@Value("${datajpa.session-stats.headers:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SessionStats stats = SessionStats.current();
+        if(stats != null){
+            response.getHeaders().set("X-Hibernate-Entities-Loaded", String.valueOf(stats.getEntitiesLoaded()));
+            response.getHeaders().set("X-Hibernate-Collections-Fetched", String.valueOf(stats.getCollectionsFetched()));
+            response.getHeaders().set("X-Hibernate-Flushes", String.valueOf(stats.getFlushes()));
+            response.getHeaders().set("X-Hibernate-Dirty-Check-Micros", String.valueOf(stats.getDirtyCheckMicros()));
+            response.getHeaders().set("X-Hibernate-Statements", String.valueOf(stats.getStatements()));
+            response.getHeaders().set("X-Hibernate-Managed-Entities", String.valueOf(stats.getMaxManagedEntities()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class DataGeneratorTest {
+
+    private static final long SEED = 7;
+    private static final String LIKE = DataGenerator.prefix(SEED) + "%";
+
+    @Autowired DataGenerator dataGenerator;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown(){
+        jdbcTemplate.update("delete from member where username like ?", LIKE);
+        jdbcTemplate.update("delete from team where name like ?", LIKE);
+        jdbcTemplate.update("delete from item where id like ?", LIKE);
+    }
+
+    @Test
+    public void generateSkewedAndDeterministic(){
+        // when
+        int[] first = dataGenerator.generate(SEED, 1000, 10, 50);
+        int[] second = dataGenerator.generate(SEED, 1000, 10, 50);
+
+        // then
+        // 같은 seed -> 같은 팀 크기, 앞 순위 팀에 회원이 몰린다
+        assertThat(second).containsExactly(first);
+        assertThat(first[0]).isGreaterThan(first[9] * 3);
+
+        assertThat(count("select count(*) from member where username like ?")).isEqualTo(2000);
+        assertThat(count("select count(*) from item where id like ?")).isEqualTo(50); // 두 번째는 건너뜀
+        // member_count 도 실제 회원 수와 맞는다
+        assertThat(count("select sum(member_count) from team where name like ?")).isEqualTo(2000);
+    }
+
+    private long count(String sql){
+        return jdbcTemplate.queryForObject(sql, Long.class, LIKE);
+    }
+}
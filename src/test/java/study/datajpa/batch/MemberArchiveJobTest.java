@@ -0,0 +1,81 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.MemberArchive;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberArchiveRepository;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberArchiveJobTest {
+
+    @Autowired MemberArchiveJob archiveJob;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberArchiveRepository memberArchiveRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void softDeleteAndArchive(){
+        // given
+        Member member = memberRepository.save(new Member("archived", 10));
+
+        // when - 소프트 삭제
+        memberRepository.delete(member);
+
+        // then - 조회에서는 빠지지만 행은 남아 있다
+        assertThat(memberRepository.findById(member.getId())).isEmpty();
+        assertThat(memberRepository.findByUsername("archived")).isEmpty();
+        assertThat(rows(member.getId())).isEqualTo(1);
+
+        // when - 보존 기간이 지나면 아카이브로 이동
+        archiveJob.archive(LocalDateTime.now().plusSeconds(1));
+
+        // then
+        assertThat(rows(member.getId())).isEqualTo(0);
+        MemberArchive archive = memberArchiveRepository.findById(member.getId()).get();
+        assertThat(archive.getUsername()).isEqualTo("archived");
+        assertThat(archive.getDeletedDate()).isNotNull();
+    }
+
+    @Test
+    public void hardDeleteTeamAfterSoftDeletingMembers(){
+        // given
+        Team team = teamRepository.save(new Team("archiveTeam"));
+        Member member1 = memberRepository.save(new Member("archivedInTeam1", 10, team));
+        Member member2 = memberRepository.save(new Member("archivedInTeam2", 20, team));
+
+        // when - 회원을 소프트 삭제한 뒤 팀을 실제로 삭제
+        memberRepository.delete(member1);
+        memberRepository.delete(member2);
+        teamRepository.deleteById(team.getId()); // 분리된 team 은 members 에 삭제된 회원을 들고 있어서 merge 하지 않는다
+
+        // then - 삭제된 행이 FK 로 팀을 붙잡지 않고, 팀 id 는 따로 남아 있다
+        assertThat(teamRepository.findById(team.getId())).isEmpty();
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select team_id, deleted_team_id from member where member_id = ?", member1.getId());
+        assertThat(row.get("TEAM_ID")).isNull();
+        assertThat(((Number) row.get("DELETED_TEAM_ID")).longValue()).isEqualTo(team.getId());
+
+        // when - 아카이브로 옮기면
+        archiveJob.archive(LocalDateTime.now().plusSeconds(1));
+
+        // then - 아카이브에는 삭제 전 팀이 남는다
+        assertThat(memberArchiveRepository.findById(member1.getId()).get().getTeamId()).isEqualTo(team.getId());
+        assertThat(memberArchiveRepository.findById(member2.getId()).get().getTeamId()).isEqualTo(team.getId());
+    }
+
+    private int rows(Long memberId){
+        return jdbcTemplate.queryForObject("select count(*) from member where member_id = ?", Integer.class, memberId);
+    }
+}
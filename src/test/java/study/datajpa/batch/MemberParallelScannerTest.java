@@ -0,0 +1,104 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberIdPartitions;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.ScanCheckpointRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class MemberParallelScannerTest {
+
+    @Autowired MemberParallelScanner scanner;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ScanCheckpointRepository checkpointRepository;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void scanAll(){
+        // given
+        for (int i = 0; i < 50; i++) {
+            memberRepository.save(new Member("scan" + i, i));
+        }
+
+        // when
+        Set<Long> visited = ConcurrentHashMap.newKeySet();
+        long processed = scanner.scan("scanAll", 4, 7, chunk -> chunk.forEach(member -> visited.add(member.getId())));
+
+        // then - 모든 회원을 한 번씩, 끝나면 체크포인트는 지운다
+        assertThat(processed).isEqualTo(memberRepository.count());
+        assertThat(visited).hasSize((int) processed);
+        assertThat(checkpointRepository.findByJobNameOrderByPartitionNo("scanAll")).isEmpty();
+    }
+
+    @Test
+    public void partitionsByRowPosition(){
+        // given
+        for (int i = 0; i < 30; i++) {
+            memberRepository.save(new Member("partition" + i, i));
+        }
+
+        // when
+        List<Long> startIds = MemberIdPartitions.startIds(em, 4);
+
+        // then - id 값이 아니라 행 수로 나누니까 파티션 크기 차이는 많아야 1
+        long total = memberRepository.count();
+        assertThat(startIds).hasSize(4).isSorted();
+        for (int i = 0; i < startIds.size(); i++) {
+            long to = i + 1 < startIds.size() ? startIds.get(i + 1) : Long.MAX_VALUE;
+            long size = em.createQuery("select count(m) from Member m where m.id >= :from and m.id < :to", Long.class)
+                    .setParameter("from", startIds.get(i))
+                    .setParameter("to", to)
+                    .getSingleResult();
+            assertThat(size).isBetween(total / 4, total / 4 + 1);
+        }
+    }
+
+    @Test
+    public void resumeAfterFailure(){
+        // given
+        for (int i = 0; i < 40; i++) {
+            memberRepository.save(new Member("resume" + i, i));
+        }
+        Set<Long> visited = ConcurrentHashMap.newKeySet();
+        Set<Long> duplicated = ConcurrentHashMap.newKeySet();
+        Consumer<List<Member>> record = chunk -> chunk.forEach(member -> {
+            if(!visited.add(member.getId())){
+                duplicated.add(member.getId());
+            }
+        });
+
+        // when - 세 번째 청크에서 실패 (그 청크는 기록하기 전에 던진다)
+        AtomicInteger chunks = new AtomicInteger();
+        assertThatThrownBy(() -> scanner.scan("resume", 3, 5, chunk -> {
+            if(chunks.incrementAndGet() == 3){
+                throw new IllegalStateException("boom");
+            }
+            record.accept(chunk);
+        })).isInstanceOf(IllegalStateException.class).hasMessageContaining("rerun to resume");
+        assertThat(checkpointRepository.findByJobNameOrderByPartitionNo("resume")).isNotEmpty();
+        int before = visited.size();
+
+        long resumed = scanner.scan("resume", 3, 5, record);
+
+        // then - 다시 실행하면 체크포인트 다음부터 이어서 읽으므로 두 번 처리된 회원이 없다
+        assertThat(duplicated).isEmpty();
+        assertThat(visited).hasSize((int) memberRepository.count());
+        assertThat(resumed).isEqualTo(visited.size() - before);
+        assertThat(checkpointRepository.findByJobNameOrderByPartitionNo("resume")).isEmpty();
+    }
+}
@@ -1,5 +1,7 @@
 package study.datajpa.entity;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -25,6 +27,9 @@ class MemberTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    ObjectMapper objectMapper;
+
     @Test
     public void testEntity(){
         Team teamA = new Team("teamA");
@@ -78,5 +83,35 @@ class MemberTest {
         System.out.println("findMember.lastModifiedBy: " + findMember.getLastModifiedBy());
     }
 
+    @Test
+    public void changeTeamWithoutDuplicate(){
+        // given
+        Team team = new Team("teamA");
+        em.persist(team);
+
+        // when
+        Member member = new Member("member1", 10, team); // 양쪽은 changeTeam 이 맞춘다 (바이트코드 향상의 연관관계 관리는 끔)
 
-}
\ No newline at end of file
+        // then
+        assertEquals(1, team.getMembers().size());
+        assertSame(team, member.getTeam());
+    }
+
+    @Test
+    public void serializeIdsAsString() throws Exception {
+        // given - 양방향 연관관계는 서로를 따라가며 직렬화되니까 따로
+        Team team = new Team("teamA");
+        em.persist(team);
+        Member member = new Member("member1", 10);
+        em.persist(member);
+
+        // when - /members 는 엔티티를 그대로 직렬화한다
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(member));
+
+        // then - 2^53 을 넘는 id 도 문자열이라 JS 에서 그대로
+        assertEquals(String.valueOf(member.getId()), json.get("id").textValue());
+        assertFalse(json.has("Id"));
+        assertEquals(String.valueOf(team.getId()),
+                objectMapper.readTree(objectMapper.writeValueAsString(team)).get("id").textValue());
+    }
+}
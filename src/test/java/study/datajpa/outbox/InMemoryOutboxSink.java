@@ -0,0 +1,29 @@
+package study.datajpa.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// 테스트 전용 싱크 (꺼내 가는 곳이 없으면 메모리에 계속 쌓이고 재시작하면 사라지므로 운영 코드에는 두지 않는다)
+// datajpa.outbox.sink=memory 인 테스트에서만 등록된다
+@Component
+@ConditionalOnProperty(name = "datajpa.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxMessage> queue = new LinkedBlockingQueue<>();
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        queue.addAll(messages);
+    }
+
+    public List<OutboxMessage> drain(){
+        List<OutboxMessage> result = new ArrayList<>();
+        queue.drainTo(result);
+        return result;
+    }
+}
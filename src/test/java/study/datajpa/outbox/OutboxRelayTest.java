@@ -0,0 +1,40 @@
+package study.datajpa.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 아웃박스는 커밋될 때 기록되므로 트랜잭션으로 묶지 않는다
+@SpringBootTest(properties = "datajpa.outbox.sink=memory")
+@Import(InMemoryOutboxSink.class)
+class OutboxRelayTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired OutboxRelay outboxRelay;
+    @Autowired InMemoryOutboxSink sink;
+
+    @Test
+    public void relay(){
+        // given
+        Team team = teamRepository.save(new Team("outboxTeam"));
+
+        // when
+        outboxRelay.relay();
+
+        // then
+        List<OutboxMessage> messages = sink.drain();
+        assertThat(messages).anySatisfy(message -> {
+            assertThat(message.getAggregateType()).isEqualTo("Team");
+            assertThat(message.getAggregateId()).isEqualTo(team.getId());
+            assertThat(message.getEventType()).isEqualTo("CREATED");
+            assertThat(message.getPayload()).contains("outboxTeam");
+        });
+    }
+}
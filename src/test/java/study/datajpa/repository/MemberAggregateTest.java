@@ -0,0 +1,70 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.MemberRow;
+import study.datajpa.dto.TeamAgeStatsDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// aggregateMembers 는 파티션마다 새 EntityManager 로 읽어서 커밋된 회원만 본다 -> 트랜잭션 없이 저장
+// 회원 테이블을 비워야 하니까 다른 테스트와 DB 를 나눠 쓰지 않는다
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:aggregate;DB_CLOSE_DELAY=-1")
+class MemberAggregateTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+
+    @BeforeEach
+    public void clear(){
+        memberRepository.deleteAllInBatch(); // MemberController 가 넣는 회원까지
+    }
+
+    @Test
+    public void groupingCollectorMatchesJpql(){
+        // given - 파티션이 여러 개 나오도록 팀마다 여러 명
+        for (int t = 0; t < 3; t++) {
+            Team team = teamRepository.save(new Team("aggregateTeam" + t));
+            for (int i = 0; i < 20; i++) {
+                memberRepository.save(new Member("aggregate" + t + "-" + i, t * 10 + i, team));
+            }
+        }
+
+        // when
+        Map<Long, IntSummaryStatistics> byTeam = memberRepository.aggregateMembers(
+                Collectors.groupingBy(MemberRow::getTeamId, Collectors.summarizingInt(MemberRow::getAge)));
+        List<TeamAgeStatsDto> expected = memberRepository.aggregateAgeByTeam();
+
+        // then - 파티션별로 모아서 합친 결과가 group by 결과와 같다
+        assertThat(byTeam).hasSize(expected.size());
+        for (TeamAgeStatsDto dto : expected) {
+            IntSummaryStatistics stats = byTeam.get(dto.getTeamId());
+            assertThat(stats.getCount()).isEqualTo(dto.getMemberCount());
+            assertThat(stats.getMin()).isEqualTo(dto.getMinAge());
+            assertThat(stats.getMax()).isEqualTo(dto.getMaxAge());
+            assertThat(stats.getAverage()).isEqualTo(dto.getAvgAge());
+        }
+    }
+
+    @Test
+    public void emptyTable(){
+        // when
+        Map<Long, IntSummaryStatistics> byTeam = memberRepository.aggregateMembers(
+                Collectors.groupingBy(MemberRow::getTeamId, Collectors.summarizingInt(MemberRow::getAge)));
+        Long count = memberRepository.aggregateMembers(Collectors.counting());
+
+        // then - 파티션 없이 빈 컨테이너를 finisher 에 넘긴다
+        assertThat(byTeam).isEmpty();
+        assertThat(count).isZero();
+        assertThat(memberRepository.aggregateAgeByTeam()).isEmpty();
+    }
+}
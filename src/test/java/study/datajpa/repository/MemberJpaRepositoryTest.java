@@ -1,22 +1,43 @@
 package study.datajpa.repository;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
+import study.datajpa.support.ExpectedQueries;
+import study.datajpa.support.MaxRowsFetched;
+import study.datajpa.support.QueryCountExtension;
+import study.datajpa.support.SqlStatementRecorder;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+// 회원 수, 페이지 내용을 확인하니까 다른 테스트와 DB 를 나눠 쓰지 않고 테스트마다 회원을 비운다 (기준선도 빈 DB 에서)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:memberJpaRepository;DB_CLOSE_DELAY=-1")
 @Transactional
 @Rollback(value = false)
+@ExtendWith(QueryCountExtension.class) // 문장 수, 기준선 비교
+@Import(SqlStatementRecorder.class)
 class MemberJpaRepositoryTest {
 
     @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @PersistenceContext
+    EntityManager em;
+
+    // 같은 트랜잭션 안에서 실행되고, 문장 수는 테스트 본문부터 센다
+    @BeforeEach
+    public void clear(){
+        memberRepository.deleteAllInBatch(); // MemberController 가 넣는 회원, 앞 테스트가 커밋한 회원까지
+    }
 
     @Test
     public void testMember(){
@@ -86,6 +107,8 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @ExpectedQueries(max = 2) // 내용 + count
+    @MaxRowsFetched(4) // 3건 + count 결과 1건
     public void paging(){
         // given
         memberJpaRepository.save(new Member("member1", 10));
@@ -93,6 +116,8 @@ class MemberJpaRepositoryTest {
         memberJpaRepository.save(new Member("member3", 10));
         memberJpaRepository.save(new Member("member4", 10));
         memberJpaRepository.save(new Member("member5", 10));
+        em.flush();
+        QueryCountExtension.reset();
 
         int age = 10;
         int offset = 0;
@@ -0,0 +1,70 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.test.StepVerifier;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// R2DBC 는 다른 커넥션이라 커밋된 데이터만 보인다 -> @Transactional 없이
+// 페이지 내용을 확인해야 하니까 다른 테스트와 DB 를 나눠 쓰지 않는다 (r2dbc-h2 도 같은 JVM 의 mem DB 를 본다)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1")
+class MemberReactiveRepositoryTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberReactiveRepository memberReactiveRepository;
+
+    private final List<Member> saved = new ArrayList<>();
+
+    @BeforeEach
+    public void clear(){
+        memberRepository.deleteAllInBatch(); // MemberController 가 넣는 회원까지
+    }
+
+    @AfterEach
+    public void tearDown(){
+        memberRepository.deleteAll(saved);
+    }
+
+    @Test
+    public void pageWithBackpressure(){
+        //given
+        Team team = teamRepository.save(new Team("reactiveTeam"));
+        for (int i = 0; i < 5; i++) {
+            saved.add(memberRepository.save(new Member("reactive" + i, i, team)));
+        }
+
+        //when, then
+        // 이름 내림차순 두 번째 페이지 = reactive2, reactive1, 하나씩 요청하면 하나씩만 온다
+        StepVerifier.create(memberReactiveRepository.findMemberDto(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "username"))), 1)
+                .expectNext(new MemberDto(saved.get(2).getId(), "reactive2", "reactiveTeam"))
+                .thenRequest(1)
+                .expectNext(new MemberDto(saved.get(1).getId(), "reactive1", "reactiveTeam"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void cancelReleasesConnection(){
+        //given
+        saved.add(memberRepository.save(new Member("reactive", 10)));
+
+        //when, then
+        // 풀 크기보다 많이 취소해도 커넥션이 반납돼서 계속 조회된다
+        for (int i = 0; i < 20; i++) {
+            StepVerifier.create(memberReactiveRepository.findMemberDto(), 1)
+                    .expectNextCount(1)
+                    .thenCancel()
+                    .verify();
+        }
+    }
+}
@@ -1,27 +1,43 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.TeamAgeStatsDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.support.ExpectedQueries;
+import study.datajpa.support.MaxRowsFetched;
+import study.datajpa.support.QueryCountExtension;
+import study.datajpa.support.SqlStatementRecorder;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest
+// 회원 수, 페이지 내용을 확인하니까 다른 테스트와 DB 를 나눠 쓰지 않고 테스트마다 회원을 비운다 (기준선도 빈 DB 에서)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:memberRepository;DB_CLOSE_DELAY=-1")
 @Transactional
 @Rollback(value = false)
+@ExtendWith(QueryCountExtension.class) // 문장 수, 기준선 비교
+@Import(SqlStatementRecorder.class)
 class MemberRepositoryTest {
 
     @Autowired MemberRepository memberRepository;
@@ -29,6 +45,12 @@ class MemberRepositoryTest {
     @PersistenceContext
     EntityManager em;
 
+    // 같은 트랜잭션 안에서 실행되고, 문장 수는 테스트 본문부터 센다
+    @BeforeEach
+    public void clear(){
+        memberRepository.deleteAllInBatch(); // MemberController 가 넣는 회원, 앞 테스트가 커밋한 회원까지
+    }
+
     @Test
     public void testMember(){
         Member member = new Member("memberA");
@@ -150,6 +172,112 @@ class MemberRepositoryTest {
             System.out.println("member = " + member);
         }
     }
+
+    @Test
+    public void findMembersByIds(){
+        Member member1 = new Member("AAA", 10);
+        Member member2 = new Member("BBB", 20);
+        Member member3 = new Member("CCC", 30);
+        memberRepository.save(member1);
+        memberRepository.save(member2);
+        memberRepository.save(member3);
+
+        // 요청한 순서 그대로 돌아와야 한다, 없는 id는 건너뛴다
+        List<Member> result = memberRepository.findMembersByIds(
+                Arrays.asList(member3.getId(), -1L, member1.getId(), member3.getId()));
+
+        assertThat(result).containsExactly(member3, member1);
+    }
+
+    @Test
+    public void findMembersByUsernames(){
+        Member member1 = memberRepository.save(new Member("usernamesA", 10));
+        Member member2 = memberRepository.save(new Member("usernamesB", 20));
+        Member member3 = memberRepository.save(new Member("usernamesB", 30));
+        Member member4 = memberRepository.save(new Member("usernamesC", 40));
+
+        // 요청한 이름 순서대로, 같은 이름의 회원은 모두, 중복 요청과 없는 이름은 한 번만 / 건너뛴다
+        List<Member> result = memberRepository.findMembersByUsernames(
+                Arrays.asList("usernamesC", "usernamesX", "usernamesB", "usernamesA", "usernamesC"));
+
+        assertThat(result).containsExactly(member4, member2, member3, member1);
+    }
+
+    @Test
+    public void findTeamsByIds(){
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Team teamC = teamRepository.save(new Team("teamC"));
+
+        List<Team> result = teamRepository.findTeamsByIds(
+                Arrays.asList(teamC.getId(), -1L, teamA.getId(), teamC.getId(), null));
+
+        assertThat(result).containsExactly(teamC, teamA);
+        assertThat(teamRepository.findTeamsByIds(Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    @Rollback // 많이 넣으니까 이 테스트는 남기지 않는다
+    @ExpectedQueries(max = 2) // 600개 -> 512 + 88, 트랜잭션 안이라 같은 스레드에서 순서대로
+    public void findMembersByIdsInChunks(){
+        List<Long> ids = memberRepository.saveAll(newMembers("chunk", 600)).stream()
+                .map(Member::getId)
+                .collect(Collectors.toList());
+        em.flush();
+        QueryCountExtension.reset();
+
+        // 역순 + 앞쪽 id 중복
+        List<Long> request = new ArrayList<>(ids);
+        Collections.reverse(request);
+        request.addAll(ids.subList(0, 10));
+        List<Member> result = memberRepository.findMembersByIds(request);
+
+        List<Long> expected = new ArrayList<>(ids);
+        Collections.reverse(expected);
+        assertThat(result).extracting(Member::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 트랜잭션 밖 = 청크를 병렬로
+    public void findMembersByIdsInParallelChunks(){
+        List<Member> saved = memberRepository.saveAll(newMembers("parallelChunk", 1100));
+        List<Long> ids = saved.stream().map(Member::getId).collect(Collectors.toList());
+        try {
+            // 섞은 순서 + 청크 경계를 넘나드는 중복, 없는 id
+            List<Long> request = new ArrayList<>(ids);
+            Collections.shuffle(request, new Random(42));
+            request.add(700, request.get(10));
+            request.add(300, -1L);
+            List<Member> result = memberRepository.findMembersByIds(request);
+
+            List<Long> expected = request.stream()
+                    .filter(id -> id != -1L)
+                    .distinct()
+                    .collect(Collectors.toList());
+            assertThat(result).extracting(Member::getId).containsExactlyElementsOf(expected);
+        } finally {
+            memberRepository.deleteInBatch(saved);
+        }
+    }
+
+    @Test
+    public void aggregateAgeByTeam(){
+        Team teamA = new Team("teamA");
+        teamRepository.save(teamA);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 30, teamA));
+
+        List<TeamAgeStatsDto> result = memberRepository.aggregateAgeByTeam();
+
+        TeamAgeStatsDto stats = result.stream()
+                .filter(dto -> dto.getTeamId().equals(teamA.getId()))
+                .findFirst().get();
+        assertThat(stats.getMemberCount()).isEqualTo(2);
+        assertThat(stats.getMinAge()).isEqualTo(10);
+        assertThat(stats.getMaxAge()).isEqualTo(30);
+        assertThat(stats.getAvgAge()).isEqualTo(20.0);
+    }
+
     @Test
     public void returnType(){
         Member member1 = new Member("AAA", 10);
@@ -161,6 +289,8 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @ExpectedQueries(max = 2) // 내용 + count
+    @MaxRowsFetched(4) // 3건 + count 결과 1건
     public void paging(){
         // given
         memberRepository.save(new Member("member1", 10));
@@ -168,6 +298,8 @@ class MemberRepositoryTest {
         memberRepository.save(new Member("member3", 10));
         memberRepository.save(new Member("member4", 10));
         memberRepository.save(new Member("member5", 10));
+        em.flush();
+        QueryCountExtension.reset();
 
         int age = 10;
         PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
@@ -213,6 +345,31 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    @Test
+    @ExpectedQueries(max = 1) // fetch 조인이 빠져서 N+1 이 되면 실패
+    public void findMemberFetchJoin(){
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 10, teamB));
+        em.flush();
+        em.clear();
+        QueryCountExtension.reset();
+
+        // when
+        List<Member> members = memberRepository.findMemberFetchJoin();
+
+        // then
+        for (Member member : members) {
+            if(member.getTeam() != null){
+                member.getTeam().getName();
+            }
+        }
+    }
+
     @Test
     public void findMemberLazy(){
         // given
@@ -406,6 +563,31 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void projectedNestedClosed(){
+        // given
+        Team teamA = new Team("teamA" );
+        em.persist(teamA);
+
+        Member m1 = new Member("m1", 0, teamA);
+        Member m2 = new Member("m2", 0, teamA);
+        em.persist(m1);
+        em.persist(m2);
+
+        em.flush();
+        em.clear();
+
+        // when
+        // select m.username, m_team.name from Member m left join m.team m_team ... (Team 전체를 읽지 않는다)
+        List<NestedClosedProjections> result = memberRepository.findProjectedByUsername("m1", NestedClosedProjections.class);
+        List<UsernameOnlyDto> dtos = memberRepository.findProjectedByUsername("m1", UsernameOnlyDto.class);
+
+        // then
+        assertThat(result.get(0).getUsername()).isEqualTo("m1");
+        assertThat(result.get(0).getTeam().getName()).isEqualTo("teamA");
+        assertThat(dtos.get(0).getUsername()).isEqualTo("m1");
+    }
+
     @Test
     public void nativeQuery(){
         // given
@@ -447,4 +629,29 @@ class MemberRepositoryTest {
             System.out.println("teamName: " + memberProjection.getTeamName());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void nativeProjectionRows(){
+        // given
+        Team teamA = new Team("teamA" );
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m2", 0, teamA));
+
+        // when - flush 전이어도 보인다
+        Page<MemberProjection> result = memberRepository.findNativeProjectionRows(PageRequest.of(0, 10));
+
+        // then
+        assertThat(result.getContent()).isNotEmpty();
+        assertThat(result.getContent().get(0)).isInstanceOf(MemberProjectionRow.class);
+        assertThat(result.getTotalElements()).isEqualTo(memberRepository.count());
+    }
+
+    private List<Member> newMembers(String prefix, int count){
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member(prefix + i, i % 100));
+        }
+        return members;
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.query-memo.enabled=true")
+@Transactional
+class QueryMemoTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired QueryMemo queryMemo;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void memoizeInTransaction(){
+        memberRepository.save(new Member("memo", 10));
+        em.flush();
+
+        long saved = queryMemo.getSavedRoundTrips();
+
+        List<Member> first = memberRepository.findByUsername("memo");
+        List<Member> second = memberRepository.findByUsername("memo");
+
+        // 두 번째 호출은 DB에 가지 않는다
+        assertThat(second).isSameAs(first);
+        assertThat(queryMemo.getSavedRoundTrips()).isEqualTo(saved + 1);
+    }
+
+    @Test
+    public void invalidateOnFlush(){
+        memberRepository.save(new Member("memo", 10));
+        em.flush();
+
+        List<Member> before = memberRepository.findByUsername("memo");
+
+        memberRepository.save(new Member("memo", 20));
+        em.flush(); // @PostPersist -> 캐시 비움
+
+        List<Member> after = memberRepository.findByUsername("memo");
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.size()).isEqualTo(before.size() + 1);
+    }
+
+    @Test
+    public void invalidateOnBulkUpdate(){
+        memberRepository.save(new Member("memo", 10));
+
+        Member before = memberRepository.findMemberByUsername("memo");
+        memberRepository.bulkAgePlus(0);
+        Member after = memberRepository.findMemberByUsername("memo");
+
+        assertThat(after.getAge()).isEqualTo(11);
+    }
+
+    @Test
+    public void invalidateOnPendingChangesWithoutFlush(){
+        memberRepository.save(new Member("memo", 10));
+        List<Member> before = memberRepository.findByUsername("memo");
+
+        // flush 전이라 INSERT 가 대기 중 -> 캐시 대신 쿼리 (자동 flush)
+        Member added = memberRepository.save(new Member("memo", 20));
+        List<Member> afterSave = memberRepository.findByUsername("memo");
+        assertThat(afterSave.size()).isEqualTo(before.size() + 1);
+
+        // 더티 체킹 대상만 있어도 마찬가지
+        added.setUsername("memo2");
+        List<Member> afterUpdate = memberRepository.findByUsername("memo");
+        assertThat(afterUpdate.size()).isEqualTo(before.size());
+    }
+}
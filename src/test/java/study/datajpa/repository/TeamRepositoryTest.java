@@ -0,0 +1,112 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.ChangeCursor;
+import study.datajpa.dto.MemberChange;
+import study.datajpa.dto.TeamChange;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// member_count 는 커밋 직전에 반영되므로 테스트 전체를 트랜잭션으로 묶지 않는다
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamSummaryRepository teamSummaryRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void memberCount(){
+        // given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        Member member2 = memberRepository.save(new Member("member2", 20, teamA));
+
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(2);
+
+        // when
+        member2.setTeam(teamB);
+        memberRepository.save(member2); // merge -> update
+        memberRepository.delete(member1);
+
+        // then
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(0);
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isEqualTo(1);
+
+        memberRepository.delete(member2);
+    }
+
+    @Test
+    public void teamSummary(){
+        // given
+        Team team = teamRepository.save(new Team("summaryTeam"));
+        memberRepository.save(new Member("member1", 15, team));
+        memberRepository.save(new Member("member2", 25, team));
+        memberRepository.save(new Member("member3", 35, team));
+
+        // then
+        TeamSummary summary = teamSummaryRepository.findById(team.getId()).get();
+        assertThat(summary.getTeamName()).isEqualTo("summaryTeam");
+        assertThat(summary.getMemberCount()).isEqualTo(3);
+        assertThat(summary.getMinAge()).isEqualTo(15);
+        assertThat(summary.getMaxAge()).isEqualTo(35);
+        assertThat(summary.getAvgAge()).isEqualTo(25.0);
+        assertThat(summary.getAge20s()).isEqualTo(1);
+
+        // 벌크 연산 후에도 다시 계산된다 (벌크 연산은 트랜잭션 안에서만 실행된다)
+        transactionTemplate.execute(status -> memberRepository.bulkAgePlus(30));
+        assertThat(teamSummaryRepository.findById(team.getId()).get().getMaxAge()).isEqualTo(36);
+    }
+
+    @Test
+    public void changedSince(){
+        // given
+        LocalDateTime since = LocalDateTime.now().minusSeconds(1);
+        Team team = teamRepository.save(new Team("changedTeam"));
+        Team deletedTeam = teamRepository.save(new Team("deletedTeam"));
+        Member member1 = memberRepository.save(new Member("changed1", 10, team));
+        Member member2 = memberRepository.save(new Member("changed2", 20, team));
+
+        // when
+        memberRepository.delete(member2);
+        teamRepository.delete(deletedTeam);
+
+        // then - 커서를 넘기면서 끝까지 읽으면 변경과 삭제(톰스톤)가 모두 나온다
+        LocalDateTime until = LocalDateTime.now().plusSeconds(1);
+        List<MemberChange> memberChanges = new ArrayList<>();
+        ChangeCursor cursor = ChangeCursor.since(since);
+        List<MemberChange> memberPage;
+        while (!(memberPage = memberRepository.findMembersChangedSince(cursor, until, 2)).isEmpty()) {
+            memberChanges.addAll(memberPage);
+            cursor = memberPage.get(memberPage.size() - 1).cursor();
+        }
+        assertThat(memberChanges).filteredOn(change -> change.getId().equals(member1.getId()))
+                .extracting("deleted").containsExactly(false);
+        assertThat(memberChanges).filteredOn(change -> change.getId().equals(member2.getId()))
+                .extracting("deleted").containsExactly(true);
+
+        List<TeamChange> teamChanges = new ArrayList<>();
+        cursor = ChangeCursor.since(since);
+        List<TeamChange> teamPage;
+        while (!(teamPage = teamRepository.findTeamsChangedSince(cursor, until, 2)).isEmpty()) {
+            teamChanges.addAll(teamPage);
+            cursor = teamPage.get(teamPage.size() - 1).cursor();
+        }
+        assertThat(teamChanges).filteredOn(change -> change.getId().equals(team.getId()))
+                .extracting("memberCount").containsExactly(1);
+        assertThat(teamChanges).filteredOn(change -> change.getId().equals(deletedTeam.getId()))
+                .extracting("deleted").containsExactly(true);
+    }
+}
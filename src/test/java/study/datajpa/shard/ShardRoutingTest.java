@@ -0,0 +1,184 @@
+package study.datajpa.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 인메모리 H2 세 개를 샤드로
+@SpringBootTest(properties = {
+        "datajpa.shard.enabled=true",
+        "datajpa.shard.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"
+})
+class ShardRoutingTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired ShardRouter shardRouter;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void routeByTeam(){
+        // given - 팀은 샤드에 돌아가면서, 회원은 팀을 따라간다
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Team team = teamRepository.save(new Team("shardTeam" + i));
+            for (int j = 0; j < 3; j++) {
+                members.add(memberRepository.save(new Member("shard" + j + "-" + i, j, team)));
+            }
+        }
+
+        // then
+        for (Member member : members) {
+            int shard = shardRouter.shardOfId(member.getId());
+            assertThat(shard).isEqualTo(shardRouter.shardOfId(member.getTeam().getId()));
+            Long teamId = ShardContext.callOn(shard, () -> jdbcTemplate.queryForObject(
+                    "select team_id from member where member_id = ?", Long.class, member.getId()));
+            assertThat(teamId).isEqualTo(member.getTeam().getId());
+        }
+        assertThat(members.stream().map(member -> shardRouter.shardOfId(member.getId())).distinct().count()).isEqualTo(3);
+        assertThat(memberRepository.findById(members.get(4).getId()).get().getUsername()).isEqualTo("shard1-1");
+    }
+
+    @Test
+    public void scatterGather(){
+        // given
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            names.add("aaShard" + i);
+        }
+        memberRepository.saveAll(names.stream().map(name -> new Member(name, 10)).collect(Collectors.toList()));
+
+        // when - 여러 샤드에 흩어진 결과를 정렬 기준으로 병합
+        Page<Member> page = memberRepository.findAll(PageRequest.of(1, 4, Sort.by("username")));
+        List<Member> byNames = memberRepository.findByNames(Arrays.asList("aaShard0", "aaShard4", "aaShard8"));
+
+        // then
+        assertThat(page.getContent()).extracting("username")
+                .containsExactly("aaShard4", "aaShard5", "aaShard6", "aaShard7");
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+        assertThat(byNames).extracting("username").containsExactlyInAnyOrder("aaShard0", "aaShard4", "aaShard8");
+    }
+
+    @Test
+    public void rejectOtherShardInTransaction(){
+        // given - 샤드를 정하지 않고 연 트랜잭션은 기본 샤드(0)에 묶인다
+        Team other = teamsOnEachShard("txTeam").stream()
+                .filter(team -> shardRouter.shardOfId(team.getId()) != 0)
+                .findFirst().get();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // when & then - 다른 샤드에서 조회/저장하지 않고 예외
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> teamRepository.findById(other.getId())))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> memberRepository.save(new Member("txMember", 1, other))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> transactionTemplate.execute(status ->
+                ShardContext.callOn(shardRouter.shardOfId(other.getId()), () -> jdbcTemplate.queryForList("select * from team"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void bindShardBeforeTransaction(){
+        // given
+        Team team = teamRepository.save(new Team("boundTeam"));
+        int shard = shardRouter.shardOfId(team.getId());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // when - 트랜잭션을 열기 전에 샤드를 정한다
+        Member member = ShardContext.callOn(shard, () -> transactionTemplate.execute(status ->
+                memberRepository.save(new Member("boundMember", 1, teamRepository.findById(team.getId()).get()))));
+
+        // then
+        assertThat(shardRouter.shardOfId(member.getId())).isEqualTo(shard);
+        assertThat(memberRepository.findById(member.getId()).get().getUsername()).isEqualTo("boundMember");
+    }
+
+    @Test
+    public void scatterReadInTransaction(){
+        // given
+        List<Team> teams = teamsOnEachShard("txScatterTeam");
+        for (int i = 0; i < teams.size(); i++) {
+            memberRepository.save(new Member("txScatter" + i, 1, teams.get(i)));
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // when - 트랜잭션의 샤드는 아직 커밋 안 된 변경까지, 나머지 샤드는 각자 읽는다
+        List<Member> found = transactionTemplate.execute(status -> {
+            memberRepository.save(new Member("txScatterLocal", 1));
+            return memberRepository.findByNames(Arrays.asList("txScatter0", "txScatter1", "txScatter2", "txScatterLocal"));
+        });
+
+        // then
+        assertThat(found).extracting("username")
+                .containsExactlyInAnyOrder("txScatter0", "txScatter1", "txScatter2", "txScatterLocal");
+    }
+
+    @Test
+    public void bulkWriteOnlyOutsideTransaction(){
+        // given
+        List<Member> members = new ArrayList<>();
+        for (Team team : teamsOnEachShard("bulkTeam")) {
+            members.add(memberRepository.save(new Member("bulk" + team.getId(), 500, team)));
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // when & then - 트랜잭션 안이면 한 샤드만 바뀌니까 막고, 밖이면 샤드마다 따로 커밋
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> memberRepository.bulkAgePlus(500)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(memberRepository.bulkAgePlus(500)).isEqualTo(3);
+        for (Member member : members) {
+            assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(501);
+        }
+    }
+
+    @Test
+    public void rejectCustomFragment(){
+        // 커스텀 구현은 자체 커넥션/스레드를 써서 샤드를 따라가지 못한다
+        assertThatThrownBy(() -> memberRepository.findMembersByIds(Arrays.asList(1L, 2L)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void singleResultFromSeveralShards(){
+        // given - 같은 이름이 두 샤드에
+        List<Team> teams = teamsOnEachShard("dupTeam");
+        memberRepository.save(new Member("dupMember", 1, teams.get(0)));
+        memberRepository.save(new Member("dupMember", 2, teams.get(1)));
+
+        // when & then - 아무거나 고르지 않는다
+        assertThatThrownBy(() -> memberRepository.findMemberByUsername("dupMember"))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+        assertThatThrownBy(() -> memberRepository.findOptionalByUsername("dupMember"))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+    }
+
+    // 팀은 돌아가면서 샤드에 들어가니까 연달아 세 개면 샤드마다 하나씩
+    private List<Team> teamsOnEachShard(String prefix){
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            teams.add(teamRepository.save(new Team(prefix + i)));
+        }
+        assertThat(teams.stream().map(team -> shardRouter.shardOfId(team.getId())).distinct().count()).isEqualTo(3);
+        return teams;
+    }
+}
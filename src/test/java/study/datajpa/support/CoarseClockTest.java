@@ -0,0 +1,34 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoarseClockTest {
+
+    @Test
+    public void tick() throws InterruptedException {
+        CoarseClock clock = new CoarseClock(ZoneId.systemDefault());
+        try {
+            LocalDateTime first = clock.localDateTime();
+
+            // 1ms 안에서는 같은 인스턴스, 시간이 지나면 갱신된다
+            Thread.sleep(20);
+            LocalDateTime second = clock.localDateTime();
+            assertThat(second).isAfter(first);
+            // 갱신 스레드가 스케줄링에 밀리면 (CPU 하나, JIT/GC 중) 100ms 넘게 늦기도 하니 여유 있게
+            assertThat(Duration.between(second, LocalDateTime.now()).abs().toMillis()).isLessThan(1000);
+            // 읽는 사이에 갱신될 수 있으니 앞뒤 millis 사이에 있는지만 본다
+            long before = clock.millis();
+            long instant = clock.instant().toEpochMilli();
+            long after = clock.millis();
+            assertThat(instant).isBetween(before, after);
+        } finally {
+            clock.stop();
+        }
+    }
+}
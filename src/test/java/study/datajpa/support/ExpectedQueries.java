@@ -0,0 +1,15 @@
+package study.datajpa.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 테스트 하나에서 실행될 수 있는 JDBC 문장 수 (QueryCountExtension)
+// given 단계를 빼려면 when 직전에 QueryCountExtension.reset()
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExpectedQueries {
+
+    int max();
+}
@@ -0,0 +1,79 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.fetch-profile.mode=apply")
+@Transactional
+@Import(SqlStatementRecorder.class) // 실제로 나간 문장 수
+class FetchProfilerTest {
+
+    private static final String METHOD = "MemberRepository.findListByUsername(String)";
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired FetchProfiler fetchProfiler;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void recordAndPrefetchTeam(){
+        //given
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("fetchTeam" + i);
+            em.persist(team);
+            memberRepository.save(new Member("fetchProfile", 10, team));
+        }
+        em.flush();
+        em.clear();
+        long estimatedBefore = estimatedSavedQueries();
+
+        //when
+        // 첫 호출: team 프록시를 하나씩 초기화 -> 지연 로딩 3번 기록
+        SqlStatementRecorder.start();
+        List<Member> first = memberRepository.findListByUsername("fetchProfile");
+        first.forEach(member -> member.getTeam().getName());
+        int firstStatements = SqlStatementRecorder.stop().getStatementCount();
+        em.clear();
+
+        // 두 번째 호출: team 이 후보가 돼서 반환 전에 한 번에 로딩
+        SqlStatementRecorder.start();
+        List<Member> second = memberRepository.findListByUsername("fetchProfile");
+        second.forEach(member -> member.getTeam().getName());
+        int secondStatements = SqlStatementRecorder.stop().getStatementCount();
+
+        //then
+        Map<String, Object> profile = methodProfile();
+        assertThat((Map<String, Long>) profile.get("lazyLoads")).containsEntry("team", 3L);
+        assertThat((List<?>) profile.get("suggestedEntityGraph")).containsExactly("team");
+        // 실제 문장 수: 회원 1 + 팀 3 -> 회원 1 + 팀 IN 쿼리 1
+        assertThat(firstStatements).isEqualTo(4);
+        assertThat(secondStatements).isEqualTo(2);
+        // 보고서의 추정치도 실제로 줄어든 수와 같다 (미리 채운 팀을 모두 읽었으니까)
+        assertThat(estimatedSavedQueries() - estimatedBefore).isEqualTo(firstStatements - secondStatements);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> methodProfile(){
+        Map<String, Object> methods = (Map<String, Object>) fetchProfiler.report().get("methods");
+        return (Map<String, Object>) methods.get(METHOD);
+    }
+
+    private long estimatedSavedQueries(){
+        Map<String, Object> profile = methodProfile();
+        return profile == null ? 0 : (Long) profile.get("estimatedSavedQueries");
+    }
+}
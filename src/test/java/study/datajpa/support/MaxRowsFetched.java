@@ -0,0 +1,14 @@
+package study.datajpa.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 테스트 하나에서 ResultSet 으로 읽을 수 있는 행 수 (QueryCountExtension)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxRowsFetched {
+
+    long value();
+}
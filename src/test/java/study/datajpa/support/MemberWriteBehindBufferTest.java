@@ -0,0 +1,62 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamSummaryRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"datajpa.write-behind.enabled=true", "datajpa.write-behind.flush-interval=600000"})
+class MemberWriteBehindBufferTest {
+
+    @Autowired MemberWriteBehindBuffer buffer;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired TeamSummaryRepository teamSummaryRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void coalesce(){
+        // given
+        Member member = memberRepository.save(new Member("member1", 10));
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            buffer.addAge(member.getId(), 1);
+        }
+        buffer.changeUsername(member.getId(), "member2");
+
+        // 아직 DB에는 반영 전
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(10);
+
+        // then - 회원 한 명에 대한 변경 101건이 한 줄로 합쳐진다
+        assertThat(buffer.flush(true)).isEqualTo(1);
+        Member findMember = memberRepository.findById(member.getId()).get();
+        assertThat(findMember.getAge()).isEqualTo(110);
+        assertThat(findMember.getUsername()).isEqualTo("member2");
+    }
+
+    @Test
+    public void refreshOnlyTouchedTeams(){
+        // given - 두 팀의 요약이 만들어진 뒤, 손대지 않을 팀의 요약을 일부러 틀리게
+        Team touched = teamRepository.save(new Team("writeBehindTeamA"));
+        Team untouched = teamRepository.save(new Team("writeBehindTeamB"));
+        Member member = memberRepository.save(new Member("writeBehindA", 10, touched));
+        memberRepository.save(new Member("writeBehindB", 20, untouched));
+        jdbcTemplate.update("update team_summary set age_sum = -1 where team_id = ?", untouched.getId());
+
+        // when
+        buffer.addAge(member.getId(), 5);
+        buffer.flush(true);
+
+        // then - 나이가 바뀐 회원의 팀만 다시 계산된다
+        assertThat(teamSummaryRepository.findById(touched.getId()).get().getAgeSum()).isEqualTo(15);
+        assertThat(teamSummaryRepository.findById(untouched.getId()).get().getAgeSum()).isEqualTo(-1);
+    }
+}
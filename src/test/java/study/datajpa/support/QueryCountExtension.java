@@ -0,0 +1,162 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// 테스트 본문에서 실행된 JDBC 문장을 세서
+// - @ExpectedQueries(max), @MaxRowsFetched 를 넘으면 실패
+// - 기준선 파일(<baseline dir>/<테스트 클래스>.properties)보다 문장 수가 늘거나 중앙값 실행 시간이 크게 늘면 실패
+//   ./gradlew test -Dquerycount.baseline.update=true 로 기준선을 다시 쓴다 (실행 시간은 최근 실행 중 가장 빠른 값, 몇 번 돌려서 갱신)
+// 문장 몇 개짜리 테스트의 실행 시간은 한 번만 재면 JIT, GC, 스케줄러 작업 때문에 가끔 열 배씩 튄다
+//   -> 테스트마다 실행별 중앙값을 최근 RUNS 번 기록 파일(<history dir>/<테스트 클래스>.properties)에 남기고
+//      RUNS 번이 모였을 때 그중 가장 빠른 값끼리 비교한다
+//   간섭은 시간을 늘리기만 하니까 가장 빠른 실행이 실제 비용에 가깝다, 진짜 회귀면 모든 실행이 느려진다
+// 트랜잭션 롤백/커밋 때 나가는 문장은 세지 않는다 (@Transactional 테스트의 afterEach 전에 끝남)
+// 테스트 클래스에 @Import(SqlStatementRecorder.class) 가 없으면 아무것도 안 세고 통과하니까 바로 실패시킨다
+public class QueryCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback, AfterAllCallback {
+
+    private static final String BASELINE_DIR = System.getProperty("querycount.baseline.dir", "src/test/resources/query-baseline");
+    private static final boolean UPDATE = Boolean.getBoolean("querycount.baseline.update");
+    private static final String HISTORY_DIR = System.getProperty("querycount.history.dir", "build/query-history");
+    private static final int RUNS = 5;
+    private static final int LATENCY_FACTOR = 3;
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryCountExtension.class);
+    private static final String HISTORY = "history:";
+
+    public static void reset(){
+        SqlStatementRecorder.reset();
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if(SpringExtension.getApplicationContext(context).getBeanProvider(SqlStatementRecorder.class).getIfAvailable() == null){
+            throw new IllegalStateException("SqlStatementRecorder 빈이 없습니다. @Import(SqlStatementRecorder.class) 를 붙이세요");
+        }
+        SqlStatementRecorder.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementRecorder.Recording recording = SqlStatementRecorder.stop();
+        // 도중에 실패한 테스트는 문장 수가 적게 나오니까 비교도, 기준선 갱신도 하지 않는다
+        if(context.getExecutionException().isPresent()){
+            return;
+        }
+        Method method = context.getRequiredTestMethod();
+
+        ExpectedQueries expectedQueries = method.getAnnotation(ExpectedQueries.class);
+        if(expectedQueries != null && recording.getStatementCount() > expectedQueries.max()){
+            throw new AssertionError("expected at most " + expectedQueries.max() + " statements but was "
+                    + recording.getStatementCount() + ":\n  " + String.join("\n  ", recording.getStatements()));
+        }
+        MaxRowsFetched maxRowsFetched = method.getAnnotation(MaxRowsFetched.class);
+        if(maxRowsFetched != null && recording.getRows() > maxRowsFetched.value()){
+            throw new AssertionError("expected at most " + maxRowsFetched.value() + " rows but fetched " + recording.getRows());
+        }
+
+        Properties baseline = baseline(context);
+        String key = method.getName();
+        List<Long> runs = record(history(context), key + ".medianMicros", recording.getMedianMicros());
+        long fastest = Collections.min(runs);
+        if(UPDATE){
+            baseline.setProperty(key + ".statements", String.valueOf(recording.getStatementCount()));
+            baseline.setProperty(key + ".medianMicros", String.valueOf(fastest));
+            return;
+        }
+        String statements = baseline.getProperty(key + ".statements");
+        if(statements != null && recording.getStatementCount() > Integer.parseInt(statements)){
+            throw new AssertionError("statement count regressed: " + statements + " -> " + recording.getStatementCount()
+                    + ":\n  " + String.join("\n  ", recording.getStatements()));
+        }
+        String medianMicros = baseline.getProperty(key + ".medianMicros");
+        if(medianMicros != null && runs.size() == RUNS && fastest > Long.parseLong(medianMicros) * LATENCY_FACTOR){
+            throw new AssertionError("median statement latency regressed in all of the last " + RUNS + " runs: "
+                    + medianMicros + "us -> " + runs + "us");
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        write(historyFile(context), history(context));
+        if(UPDATE){
+            write(baselineFile(context), baseline(context));
+        }
+    }
+
+    // 최근 RUNS 번의 값을 남기고 돌려준다
+    private static List<Long> record(Properties history, String key, long value){
+        List<Long> values = new ArrayList<>();
+        String previous = history.getProperty(key);
+        if(previous != null){
+            for (String run : previous.split(",")) {
+                values.add(Long.parseLong(run));
+            }
+        }
+        values.add(value);
+        if(values.size() > RUNS){
+            values = new ArrayList<>(values.subList(values.size() - RUNS, values.size()));
+        }
+        history.setProperty(key, values.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        return values;
+    }
+
+    private Properties baseline(ExtensionContext context){
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                context.getRequiredTestClass().getName(), key -> load(baselineFile(context)), Properties.class);
+    }
+
+    private Properties history(ExtensionContext context){
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                HISTORY + context.getRequiredTestClass().getName(), key -> load(historyFile(context)), Properties.class);
+    }
+
+    private static Path baselineFile(ExtensionContext context){
+        return Paths.get(BASELINE_DIR, context.getRequiredTestClass().getSimpleName() + ".properties");
+    }
+
+    private static Path historyFile(ExtensionContext context){
+        return Paths.get(HISTORY_DIR, context.getRequiredTestClass().getSimpleName() + ".properties");
+    }
+
+    private static void write(Path file, Properties properties){
+        try {
+            Files.createDirectories(file.getParent());
+            // 키 순서를 고정해서 기준선 변경이 diff 로 잘 보이게
+            List<String> lines = new ArrayList<>();
+            new TreeMap<>(properties).forEach((key, value) -> lines.add(key + "=" + value));
+            Files.write(file, lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Properties load(Path file){
+        Properties properties = new Properties();
+        if(Files.exists(file)){
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return properties;
+    }
+}
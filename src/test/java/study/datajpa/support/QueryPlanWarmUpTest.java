@@ -0,0 +1,97 @@
+package study.datajpa.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class QueryPlanWarmUpTest {
+
+    // 줄바꿈, 들여쓰기, 연속 공백이 그대로 플랜 캐시 키가 된다
+    private static final String QUERY = "select m\n  from Member m\r\n where m.username  like '%\\\\%' or m.age > :age";
+
+    @Autowired ListableBeanFactory beanFactory;
+    @Autowired EntityManagerFactory emf;
+    @Autowired EntityManager em;
+    @Autowired QueryPlanStats queryPlanStats;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp(){
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void escapeRoundTrip(){
+        String line = QueryPlanWarmUp.escape(QUERY);
+
+        assertThat(line).doesNotContain("\n").doesNotContain("\r");
+        assertThat(QueryPlanWarmUp.unescape(line)).isEqualTo(QUERY);
+    }
+
+    @Test
+    public void warmUpFileKeepsExactQuery(@TempDir Path dir) throws Exception {
+        // given - 실행된 쿼리를 기록
+        Path file = dir.resolve("warm-up.txt");
+        QueryPlanWarmUp warmUp = new QueryPlanWarmUp(beanFactory, emf, queryPlanStats, true, file.toString());
+        execute();
+        warmUp.recordExecutedQueries();
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).contains(QueryPlanWarmUp.escape(QUERY));
+
+        // when - 재기동처럼 플랜 캐시를 비우고 파일로 미리 컴파일
+        clearPlanCache();
+        warmUp.run(null);
+        execute();
+
+        // then - 미리 만든 플랜을 그대로 쓴다 (공백을 줄였다면 다른 키라서 miss 가 한 번 더 난다)
+        assertThat(statistics.getQueryStatistics(QUERY).getPlanCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryStatistics(QUERY).getPlanCacheHitCount()).isGreaterThan(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void reportRecompiles(){
+        // given - 한 번 컴파일하고, 캐시에서 밀려난 뒤 다시 컴파일
+        clearPlanCache();
+        execute();
+        emf.unwrap(SessionFactoryImplementor.class).getQueryPlanCache().cleanup();
+        execute();
+
+        // when
+        List<Map<String, Object>> queries = (List<Map<String, Object>>) queryPlanStats.report().get("queries");
+
+        // then
+        Map<String, Object> shape = queries.stream()
+                .filter(q -> QUERY.equals(q.get("query")))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertThat(shape).containsEntry("planCacheMisses", 2L).containsEntry("recompiles", 1L);
+        assertThat(queries.get(0).get("recompiles")).isEqualTo(1L); // 다시 컴파일된 쿼리가 앞으로
+    }
+
+    private void execute(){
+        em.createQuery(QUERY).setParameter("age", 200).getResultList();
+    }
+
+    private void clearPlanCache(){
+        emf.unwrap(SessionFactoryImplementor.class).getQueryPlanCache().cleanup();
+        statistics.clear();
+    }
+}
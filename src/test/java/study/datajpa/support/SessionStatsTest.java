@@ -0,0 +1,68 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"datajpa.session-stats.max-managed-entities=5", "datajpa.session-stats.guard=abort"})
+@Transactional
+class SessionStatsTest {
+
+    @Autowired MemberRepository memberRepository;
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    public void tearDown(){
+        SessionStats.end();
+    }
+
+    @Test
+    public void collectPerRequest(){
+        //given
+        Team team = new Team("statsTeam");
+        em.persist(team);
+        memberRepository.save(new Member("sessionStats", 10, team));
+        memberRepository.save(new Member("sessionStats", 20, team));
+        em.flush();
+        em.clear();
+
+        //when
+        SessionStats stats = SessionStats.begin("test");
+        List<Member> members = memberRepository.findListByUsername("sessionStats");
+        members.get(0).getTeam().getMembers().size(); // 팀 프록시 + 컬렉션 지연 로딩
+        members.get(0).setUsername("sessionStats2");
+        em.flush();
+
+        //then
+        assertThat(stats.getEntitiesLoaded()).isEqualTo(3); // 회원 2 + 팀 1
+        assertThat(stats.getCollectionsFetched()).isEqualTo(1);
+        assertThat(stats.getFlushes()).isEqualTo(1);
+        assertThat(stats.getStatements()).isGreaterThanOrEqualTo(4); // 조회 3번 + update
+        assertThat(stats.getMaxManagedEntities()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void abortWhenTooManyManagedEntities(){
+        //given
+        SessionStats.begin("test");
+        for (int i = 0; i < 6; i++) {
+            em.persist(new Member("guard" + i, i));
+        }
+
+        //when, then
+        assertThatThrownBy(() -> em.flush()).hasMessageContaining("영속성 컨텍스트 엔티티 수 초과");
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void timeOrdered(){
+        // given
+        long before = System.currentTimeMillis();
+
+        // when - 같은 ms 에 4096개를 넘겨도 중복 없이 계속 증가
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = SnowflakeIdGenerator.nextId(3, 2);
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+
+        // then - 샤드, 생성 시각을 id 에서 다시 꺼낼 수 있다
+        assertThat(SnowflakeIdGenerator.shardOf(previous)).isEqualTo(2);
+        assertThat(SnowflakeIdGenerator.timestampOf(previous)).isGreaterThanOrEqualTo(before);
+    }
+}
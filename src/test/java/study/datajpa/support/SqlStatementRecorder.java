@@ -0,0 +1,82 @@
+package study.datajpa.support;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// p6spy 가 감싼 DataSource 에서 실행된 JDBC 문장을 스레드별로 기록한다 (JdbcEventListener 빈은 스타터가 자동으로 붙인다)
+// 테스트 전용: QueryCountExtension 을 쓰는 테스트가 @Import(SqlStatementRecorder.class) 로 등록한다
+// start() ~ stop() 사이에 이 스레드에서 실행된 문장, 실행 시간, 읽은 행 수를 모은다 (테스트의 @ExpectedQueries 등)
+// 배치 실행(executeBatch)은 DB 왕복 한 번이라 문장 하나로 센다
+public class SqlStatementRecorder extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    public static Recording start(){
+        Recording recording = new Recording();
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    public static Recording stop(){
+        Recording recording = CURRENT.get();
+        CURRENT.remove();
+        return recording;
+    }
+
+    // 기록 중이면 지금까지 모은 걸 버리고 다시 센다 (given 단계 제외)
+    public static void reset(){
+        if(CURRENT.get() != null){
+            CURRENT.set(new Recording());
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Recording recording = CURRENT.get();
+        if(recording != null){
+            recording.statements.add(statementInformation.getSql());
+            recording.elapsedNanos.add(timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        Recording recording = CURRENT.get();
+        if(recording != null && hasNext){
+            recording.rows++;
+        }
+    }
+
+    public static class Recording {
+        private final List<String> statements = new ArrayList<>();
+        private final List<Long> elapsedNanos = new ArrayList<>();
+        private long rows;
+
+        public List<String> getStatements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+        public int getStatementCount() {
+            return statements.size();
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMedianMicros() {
+            if(elapsedNanos.isEmpty()){
+                return 0;
+            }
+            List<Long> sorted = new ArrayList<>(elapsedNanos);
+            Collections.sort(sorted);
+            return sorted.get(sorted.size() / 2) / 1_000;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EntitySnapshotCacheTest {
+
+    @Autowired EntitySnapshotCache snapshotCache;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void snapshot(){
+        // given
+        Member member = memberRepository.save(new Member("member1", 10));
+
+        // when
+        Member loaded = snapshotCache.load(Member.class, member.getId());
+
+        // then - 두 번째부터는 DB 를 거치지 않고 같은 스냅샷
+        assertThat(loaded.getUsername()).isEqualTo("member1");
+        assertThat(snapshotCache.get(Member.class, member.getId(), 60_000)).isSameAs(loaded);
+
+        // 수정되면 캐시에서 빠진다
+        member.changeUsername("member2");
+        memberRepository.save(member);
+        assertThat(snapshotCache.get(Member.class, member.getId(), 60_000)).isNull();
+        assertThat(snapshotCache.load(Member.class, member.getId()).getUsername()).isEqualTo("member2");
+    }
+
+    @Test
+    public void evictAgainAfterCommit(){
+        // given
+        Member member = memberRepository.save(new Member("snapshotTx", 10));
+
+        // when - flush 로 지운 뒤, 커밋 전에 다른 요청이 이전 값을 다시 캐시
+        transactionTemplate.execute(status -> {
+            memberRepository.findById(member.getId()).get().changeUsername("snapshotTx2");
+            memberRepository.flush();
+            assertThat(snapshotCache.load(Member.class, member.getId()).getUsername()).isEqualTo("snapshotTx");
+            return null;
+        });
+
+        // then - 커밋 뒤에 다시 지워서 새 값을 읽는다
+        assertThat(snapshotCache.get(Member.class, member.getId(), 60_000)).isNull();
+        assertThat(snapshotCache.load(Member.class, member.getId()).getUsername()).isEqualTo("snapshotTx2");
+    }
+}
@@ -0,0 +1,139 @@
+package study.datajpa.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.SqlStatementRecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 캐시된 응답이면 쿼리가 하나도 나가지 않는다 -> 실행된 문장 수로 캐시 적중을 본다
+// 쓰기는 커밋돼야 버전이 바뀌므로 트랜잭션 없이
+@SpringBootTest(properties = "datajpa.response-cache.max-entries=2")
+@AutoConfigureMockMvc
+@Import(SqlStatementRecorder.class)
+class MemberConditionalGetFilterTest {
+
+    private static final int CACHE_HIT = 0;
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void notModified() throws Exception {
+        // given
+        String etag = mockMvc.perform(get("/memberDtos?page=0&size=3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // then
+        assertThat(etag).isNotNull();
+        mockMvc.perform(get("/memberDtos?page=0&size=3").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void reuseCachedBody() throws Exception {
+        // given
+        String first = request("/memberDtos?page=1&size=3").body;
+
+        // when
+        Recorded second = request("/memberDtos?page=1&size=3");
+
+        // then - 컨트롤러를 타지 않고 같은 본문
+        assertThat(second.statements).isEqualTo(CACHE_HIT);
+        assertThat(second.body).isEqualTo(first);
+    }
+
+    @Test
+    public void replaceAfterWrite() throws Exception {
+        // given
+        Recorded before = request("/memberDtos?page=0&size=20&sort=createdDate,desc");
+        request("/memberDtos?page=0&size=20&sort=createdDate,desc");
+
+        // when
+        Member member = memberRepository.save(new Member("conditionalGet", 10));
+
+        // then - 버전이 바뀌어서 다시 만들고, 그 다음부터는 새 응답을 재사용
+        Recorded after = request("/memberDtos?page=0&size=20&sort=createdDate,desc");
+        assertThat(after.statements).isGreaterThan(CACHE_HIT);
+        assertThat(after.etag).isNotEqualTo(before.etag);
+        assertThat(after.body).contains("\"" + member.getId() + "\"");
+        assertThat(request("/memberDtos?page=0&size=20&sort=createdDate,desc").statements).isEqualTo(CACHE_HIT);
+    }
+
+    @Test
+    public void changeOnWritesInSameMillisecond() throws Exception {
+        // given
+        Member member = memberRepository.save(new Member("conditionalGetSame", 10));
+        String before = mockMvc.perform(get("/members/" + member.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // when - 수정 시각이 같은 밀리초(또는 같은 CoarseClock 틱)여도
+        member.setAge(11);
+        memberRepository.save(member);
+
+        // then
+        mockMvc.perform(get("/members/" + member.getId()).header("If-None-Match", before))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void changeOnBulkUpdate() throws Exception {
+        // given
+        Recorded before = request("/memberDtos?page=0&size=3");
+
+        // when - 엔티티 이벤트가 없는 벌크 업데이트
+        transactionTemplate.execute(status -> memberRepository.bulkAgePlus(1000));
+
+        // then
+        Recorded after = request("/memberDtos?page=0&size=3");
+        assertThat(after.etag).isNotEqualTo(before.etag);
+        assertThat(after.statements).isGreaterThan(CACHE_HIT);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        // given - max-entries=2
+        request("/memberDtos?page=0&size=2");
+        request("/memberDtos?page=1&size=2");
+
+        // when
+        request("/memberDtos?page=0&size=2"); // page=0 을 최근으로
+        request("/memberDtos?page=2&size=2"); // page=1 이 밀려난다
+
+        // then
+        assertThat(request("/memberDtos?page=0&size=2").statements).isEqualTo(CACHE_HIT);
+        assertThat(request("/memberDtos?page=2&size=2").statements).isEqualTo(CACHE_HIT);
+        assertThat(request("/memberDtos?page=1&size=2").statements).isGreaterThan(CACHE_HIT);
+    }
+
+    private Recorded request(String url) throws Exception {
+        SqlStatementRecorder.start();
+        MvcResult result = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+        int statements = SqlStatementRecorder.stop().getStatementCount();
+        return new Recorded(statements, result.getResponse().getHeader("ETag"), result.getResponse().getContentAsString());
+    }
+
+    private static class Recorded {
+        private final int statements;
+        private final String etag;
+        private final String body;
+
+        Recorded(int statements, String etag, String body) {
+            this.statements = statements;
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+}
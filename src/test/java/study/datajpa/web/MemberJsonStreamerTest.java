@@ -0,0 +1,98 @@
+package study.datajpa.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// JdbcTemplate 으로 읽으니 커밋된 회원만 보인다 -> 트랜잭션 없이 저장
+// 전체 개수를 확인해야 하니까 다른 테스트와 DB 를 나눠 쓰지 않는다
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stream;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class MemberJsonStreamerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+
+    private final List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp(){
+        memberRepository.deleteAllInBatch(); // MemberController 가 넣는 회원까지
+        Team team = teamRepository.save(new Team("streamTeam"));
+        for (int i = 0; i < 5; i++) {
+            members.add(memberRepository.save(new Member("stream" + i, 40 - i, team)));
+        }
+    }
+
+    @Test
+    public void fullPage() throws Exception {
+        // when - 나이 오름차순이면 저장 역순
+        ResultActions result = stream("/members/stream?page=0&size=2&sort=age");
+
+        // then - 페이지가 꽉 차서 count 쿼리로 전체 개수
+        result.andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(String.valueOf(members.get(4).getId())))
+                .andExpect(jsonPath("$.content[0].username").value("stream4"))
+                .andExpect(jsonPath("$.content[0].age").value(36))
+                .andExpect(jsonPath("$.content[0].teamName").value("streamTeam"))
+                .andExpect(jsonPath("$.content[1].username").value("stream3"))
+                .andExpect(jsonPath("$.page.number").value(0))
+                .andExpect(jsonPath("$.page.size").value(2))
+                .andExpect(jsonPath("$.page.numberOfElements").value(2))
+                .andExpect(jsonPath("$.page.totalElements").value(5))
+                .andExpect(jsonPath("$.page.totalPages").value(3));
+    }
+
+    @Test
+    public void partialPage() throws Exception {
+        // when
+        ResultActions result = stream("/members/stream?page=2&size=2&sort=age");
+
+        // then - 마지막 페이지는 offset + 행 수로 전체 개수
+        result.andExpect(jsonPath("$.content[*].username", contains("stream0")))
+                .andExpect(jsonPath("$.page.number").value(2))
+                .andExpect(jsonPath("$.page.numberOfElements").value(1))
+                .andExpect(jsonPath("$.page.totalElements").value(5))
+                .andExpect(jsonPath("$.page.totalPages").value(3));
+    }
+
+    @Test
+    public void ignoreUnknownSortProperty() throws Exception {
+        // when - 매핑에 없는 속성은 SQL 에 들어가지 않는다
+        ResultActions result = stream("/members/stream?page=0&size=5&sort=password,desc&sort=age;drop table member");
+
+        // then - member_id 순서 (스노우플레이크 id 는 저장 순서)
+        result.andExpect(jsonPath("$.content[*].username",
+                contains("stream0", "stream1", "stream2", "stream3", "stream4")))
+                .andExpect(jsonPath("$.page.totalElements").value(5));
+    }
+
+    // StreamingResponseBody 는 비동기로 쓰이니까 한 번 더 디스패치해서 본문을 받는다
+    private ResultActions stream(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+    }
+}